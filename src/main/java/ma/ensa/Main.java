@@ -2,6 +2,8 @@ package ma.ensa;
 
 import ma.ensa.db.DatabaseManager;
 import ma.ensa.db.DatabaseManagerFactory;
+import ma.ensa.db.LoggingExecutionListener;
+import ma.ensa.db.SqlTemplate;
 import ma.ensa.util.DBConfigLoader;
 
 import java.sql.SQLException;
@@ -19,6 +21,8 @@ public class Main {
             DatabaseManagerFactory factory = new DatabaseManagerFactory(configLoader);
             // Utilisation de try-with-resources pour gérer la fermeture automatique
             try (DatabaseManager dbManager = factory.createDatabaseManager("oracle")) {
+                // Afficher les connexions et transactions sur la console
+                dbManager.addExecutionListener(new LoggingExecutionListener());
                 System.out.println("Connexion à la base de données établie.");
                 // Créer une table de test si elle n'existe pas
                 createTestTable(dbManager);
@@ -82,14 +86,14 @@ public class Main {
         System.out.println("------------------------------------\n");
     }
     private static void updateData(DatabaseManager dbManager) throws SQLException {
-        String query = "UPDATE " + TABLE_NAME + " SET age = ? WHERE nom = ?";
-        int rowsAffected = dbManager.executeUpdate(query, 29, "Ahmed Bennani");
+        SqlTemplate query = SqlTemplate.of("UPDATE " + TABLE_NAME + " SET age = :age WHERE nom = :nom");
+        int rowsAffected = dbManager.executeUpdate(query, Map.of("age", 29, "nom", "Ahmed Bennani"));
 
         System.out.println(rowsAffected + " ligne(s) mise(s) à jour.");
     }
     private static void deleteData(DatabaseManager dbManager) throws SQLException {
-        String query = "DELETE FROM " + TABLE_NAME + " WHERE nom = ?";
-        int rowsAffected = dbManager.executeUpdate(query, "Mehdi Tazi");
+        SqlTemplate query = SqlTemplate.of("DELETE FROM " + TABLE_NAME + " WHERE nom IN (:noms)");
+        int rowsAffected = dbManager.executeUpdate(query, Map.of("noms", List.of("Mehdi Tazi")));
 
         System.out.println(rowsAffected + " ligne(s) supprimée(s).");
     }
@@ -0,0 +1,64 @@
+package ma.ensa.benchmark;
+
+import ma.ensa.db.ExecutionEvent;
+import ma.ensa.db.ExecutionEventDispatcher;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Coût de la publication d'événements sur le chemin d'une requête : sans écouteur (doit rester au niveau de
+ * la référence vide), avec un écouteur (dépôt dans le tampon circulaire), et ancien System.out.println
+ * (simulé par un PrintStream synchronisé vers un flux vide pour ne pas inonder la console).
+ * Aucune base de données n'est nécessaire.
+ * Lancement : java -cp target/classes:<dépendances> org.openjdk.jmh.Main ExecutionListenerBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExecutionListenerBenchmark {
+
+    private static final String QUERY = "UPDATE personnes SET age = ? WHERE nom = ?";
+
+    private ExecutionEventDispatcher noListener;
+    private ExecutionEventDispatcher withListener;
+    private PrintStream console;
+
+    @Setup
+    public void setUp() {
+        noListener = new ExecutionEventDispatcher("benchmark");
+        withListener = new ExecutionEventDispatcher("benchmark");
+        withListener.addListener(event -> { });
+        console = new PrintStream(OutputStream.nullOutputStream(), true);
+    }
+
+    @Benchmark
+    public long baseline() {
+        return QUERY.length();
+    }
+
+    @Benchmark
+    public long noListener() {
+        long start = noListener.before(ExecutionEvent.Type.STATEMENT, QUERY);
+        noListener.after(ExecutionEvent.Type.STATEMENT, QUERY, start, 1, null);
+        return start;
+    }
+
+    @Benchmark
+    public long withListener() {
+        long start = withListener.before(ExecutionEvent.Type.STATEMENT, QUERY);
+        withListener.after(ExecutionEvent.Type.STATEMENT, QUERY, start, 1, null);
+        return start;
+    }
+
+    @Benchmark
+    public long synchronizedPrintln() {
+        console.println("Transaction validée.");
+        return QUERY.length();
+    }
+}
@@ -0,0 +1,76 @@
+package ma.ensa.benchmark;
+
+import ma.ensa.db.DatabaseManager;
+import ma.ensa.db.DatabaseManagerFactory;
+import ma.ensa.db.StatementBinder;
+import ma.ensa.util.DBConfigLoader;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Compare le coût d'affectation des paramètres avec setObject (ancien chemin de prepareStatement) et avec un
+ * StatementBinder compilé, sur le PreparedStatement réel de chaque driver (les SGBD de db.properties doivent
+ * être joignables). La requête est seulement préparée, jamais exécutée.
+ * Lancement : java -cp target/classes:<dépendances> org.openjdk.jmh.Main ParameterBindingBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParameterBindingBenchmark {
+
+    private static final String QUERY = "INSERT INTO bench_binding (id, total, name, created_at, amount, note) "
+            + "VALUES (?, ?, ?, ?, ?, ?)";
+
+    @Param({"mysql", "postgresql", "sqlserver", "oracle"})
+    public String dbType;
+
+    private DatabaseManager dbManager;
+    private Connection connection;
+    private PreparedStatement stmt;
+    private Object[] params;
+    private StatementBinder binder;
+
+    @Setup
+    public void setUp() throws SQLException {
+        DatabaseManagerFactory factory = new DatabaseManagerFactory(new DBConfigLoader("db.properties"));
+        dbManager = factory.createDatabaseManager(dbType);
+        connection = dbManager.openConnection();
+        stmt = connection.prepareStatement(QUERY);
+        params = new Object[] {42, 4_200_000_000L, "Ahmed Bennani", new Timestamp(System.currentTimeMillis()),
+                new BigDecimal("1250.75"), null};
+        binder = StatementBinder.compile(dbManager.getSQLDialect(), params);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        stmt.close();
+        connection.close();
+    }
+
+    @Benchmark
+    public PreparedStatement setObject() throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            stmt.setObject(i + 1, params[i]);
+        }
+        return stmt;
+    }
+
+    /*Chemin de AbstractDatabaseManager : vérification de la signature puis affectation typée*/
+    @Benchmark
+    public PreparedStatement compiledBinder() throws SQLException {
+        if (!binder.accepts(params)) {
+            binder = binder.refine(params);
+        }
+        binder.bind(stmt, params);
+        return stmt;
+    }
+}
@@ -8,11 +8,17 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /*Classe abstraite qui implémente les méthodes communes aux gestionnaires de bases de données
 Avec gestion améliorée des ressources via try-with-resources */
 public abstract class AbstractDatabaseManager implements DatabaseManager, AutoCloseable {
 
+    /* Au-delà, le cache d'affectation est vidé : protège contre les requêtes construites par concaténation */
+    private static final int MAX_CACHED_BINDERS = 1000;
+    /* Lignes ramenées par aller-retour par forEachRow (ignoré par MySQL, qui lit ligne à ligne) */
+    private static final int STREAMING_FETCH_SIZE = 500;
+
     @Getter
     protected String url;
     @Getter @Setter
@@ -21,18 +27,46 @@ public abstract class AbstractDatabaseManager implements DatabaseManager, AutoCl
     protected String password;
     protected Connection connection;
     protected SQLDialect sqlDialect;
+    protected final SchemaCache schemaCache = new SchemaCache(this);
+    /* Publication des événements vers les ExecutionListener (coût négligeable sans écouteur) */
+    protected final ExecutionEventDispatcher events;
+    /* Affectation des paramètres compilée par requête (voir StatementBinder) */
+    private final Map<String, StatementBinder> binders = new ConcurrentHashMap<>();
+    /* DDL exécuté dans la transaction en cours : le cache du schéma est vidé à sa validation ou à son annulation */
+    private boolean ddlInTransaction;
 
     public AbstractDatabaseManager(String url, String username, String password) {
+        this(null, url, username, password);
+    }
+
+    /*databaseName nom du SGBD repris dans les événements (MySQL, PostgreSQL...)*/
+    protected AbstractDatabaseManager(String databaseName, String url, String username, String password) {
         this.url = url;
         this.username = username;
         this.password = password;
+        this.events = new ExecutionEventDispatcher(databaseName != null ? databaseName : getClass().getSimpleName());
+    }
+
+    @Override
+    public Connection connect() throws SQLException {
+        long start = events.before(ExecutionEvent.Type.CONNECT, null);
+        try {
+            // Établir la connexion suivie par le gestionnaire (transactions)
+            connection = openConnection();
+        } catch (SQLException e) {
+            events.after(ExecutionEvent.Type.CONNECT, null, start, -1, e);
+            throw e;
+        }
+        events.after(ExecutionEvent.Type.CONNECT, null, start, -1, null);
+        return connection;
     }
 
     @Override
     public void disconnect() throws SQLException {
         if (connection != null && !connection.isClosed()) {
+            long start = events.before(ExecutionEvent.Type.DISCONNECT, null);
             connection.close();
-            System.out.println("Connexion fermée avec succès.");
+            events.after(ExecutionEvent.Type.DISCONNECT, null, start, -1, null);
         }
     }
 
@@ -40,11 +74,32 @@ public abstract class AbstractDatabaseManager implements DatabaseManager, AutoCl
     @Override
     public void close() throws SQLException {
         disconnect();
+        // Laisser aux écouteurs le temps de recevoir les derniers événements, puis arrêter le thread de distribution
+        if (events.isEnabled()) {
+            events.awaitDelivery(1000);
+        }
+        events.shutdown();
+    }
+
+    @Override
+    public void addExecutionListener(ExecutionListener listener) {
+        events.addListener(listener);
+    }
+
+    @Override
+    public void removeExecutionListener(ExecutionListener listener) {
+        events.removeListener(listener);
+    }
+
+    @Override
+    public ExecutionEventDispatcher getExecutionEvents() {
+        return events;
     }
 
     @Override
     public List<Map<String, Object>> executeQuery(String query, Object... params) throws SQLException {
         List<Map<String, Object>> resultList = new ArrayList<>();
+        long start = events.before(ExecutionEvent.Type.STATEMENT, query);
         // Utilisation de try-with-resources pour fermeture automatique des ressources
         try (Connection conn = getConnection();
              PreparedStatement stmt = prepareStatement(conn, query, params);
@@ -52,6 +107,10 @@ public abstract class AbstractDatabaseManager implements DatabaseManager, AutoCl
 
             ResultSetMetaData metaData = rs.getMetaData();
             int columnCount = metaData.getColumnCount();
+            int[] types = new int[columnCount];
+            for (int i = 1; i <= columnCount; i++) {
+                types[i - 1] = metaData.getColumnType(i);
+            }
 
             // Parcourir les résultats
             while (rs.next()) {
@@ -61,21 +120,142 @@ public abstract class AbstractDatabaseManager implements DatabaseManager, AutoCl
                     // Pour Oracle, utiliser getColumnLabel au lieu de getColumnName
                     // et stocker en minuscules pour uniformiser avec les autres SGBD
                     String columnName = metaData.getColumnLabel(i).toLowerCase();
-                    Object value = rs.getObject(i);
+                    // Les LOB sont copiés : leurs handles ne survivent pas à la fermeture de la connexion
+                    Object value = sqlDialect.readValue(rs, i, types[i - 1]);
                     row.put(columnName, value);
                 }
                 resultList.add(row);
             }
+        } catch (SQLException e) {
+            events.after(ExecutionEvent.Type.STATEMENT, query, start, -1, e);
+            throw e;
         }
+        events.after(ExecutionEvent.Type.STATEMENT, query, start, resultList.size(), null);
         return resultList;
     }
 
+    @Override
+    public long forEachRow(String query, RowHandler handler, Object... params) throws SQLException {
+        long start = events.before(ExecutionEvent.Type.STATEMENT, query);
+        long rows = 0;
+        boolean inTransaction = inTransaction();
+        // Hors transaction, connexion dédiée : le mode flux peut désactiver l'autocommit (PostgreSQL)
+        try (Connection conn = inTransaction ? createNonClosableConnectionProxy(connection) : openConnection();
+             PreparedStatement stmt = prepareStatement(conn, query, params)) {
+            sqlDialect.enableStreaming(conn, stmt, STREAMING_FETCH_SIZE);
+            try (ResultSet rs = stmt.executeQuery()) {
+                StreamingRow row = new StreamingRow(rs, sqlDialect);
+                while (rs.next()) {
+                    handler.handle(row);
+                    rows++;
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            events.after(ExecutionEvent.Type.STATEMENT, query, start, rows, e);
+            throw e;
+        }
+        events.after(ExecutionEvent.Type.STATEMENT, query, start, rows, null);
+        return rows;
+    }
+
     @Override
     public int executeUpdate(String query, Object... params) throws SQLException {
+        int result = executeStatement(query, params);
+        // Un ordre DDL rend obsolète ce que le cache sait des tables concernées
+        if (schemaCache.invalidateForStatement(query) && inTransaction()) {
+            ddlInTransaction = true;
+        }
+        return result;
+    }
+
+    private int executeStatement(String query, Object... params) throws SQLException {
+        long start = events.before(ExecutionEvent.Type.STATEMENT, query);
+        int result;
         try (Connection conn = getConnection();
              PreparedStatement stmt = prepareStatement(conn, query, params)) {
             // Exécuter la mise à jour
-            return stmt.executeUpdate();
+            result = stmt.executeUpdate();
+        } catch (SQLException e) {
+            events.after(ExecutionEvent.Type.STATEMENT, query, start, -1, e);
+            throw e;
+        }
+        events.after(ExecutionEvent.Type.STATEMENT, query, start, result, null);
+        return result;
+    }
+
+    /*
+     * Ne sonde le catalogue que si le cache ignore l'existence de la table. Dans une transaction, la forme qui
+     * vérifie l'existence est toujours utilisée : une erreur y annulerait la transaction (PostgreSQL) et le DDL peut
+     * encore être annulé (PostgreSQL, SQL Server), le cache n'est donc mis à jour qu'à la fin de la transaction
+     */
+    @Override
+    public int createTableIfNotExists(String tableName, String columnDefinitions) throws SQLException {
+        if (inTransaction()) {
+            return executeTransactionalDdl(tableName, sqlDialect.createTableIfNotExists(tableName, columnDefinitions));
+        }
+        Boolean exists = schemaCache.isKnownToExist(tableName);
+        if (Boolean.TRUE.equals(exists)) {
+            return 0;
+        }
+        int result;
+        if (Boolean.FALSE.equals(exists)) {
+            try {
+                result = executeStatement(sqlDialect.createTable(tableName, columnDefinitions));
+            } catch (SQLException e) {
+                // Créée entre-temps par un autre client : revenir à la forme qui vérifie l'existence
+                result = executeStatement(sqlDialect.createTableIfNotExists(tableName, columnDefinitions));
+            }
+        } else {
+            result = executeStatement(sqlDialect.createTableIfNotExists(tableName, columnDefinitions));
+        }
+        schemaCache.tableCreated(tableName);
+        return result;
+    }
+
+    @Override
+    public int dropTableIfExists(String tableName) throws SQLException {
+        if (inTransaction()) {
+            return executeTransactionalDdl(tableName, sqlDialect.dropTableIfExists(tableName));
+        }
+        Boolean exists = schemaCache.isKnownToExist(tableName);
+        if (Boolean.FALSE.equals(exists)) {
+            return 0;
+        }
+        int result;
+        if (Boolean.TRUE.equals(exists)) {
+            try {
+                result = executeStatement(sqlDialect.dropTable(tableName));
+            } catch (SQLException e) {
+                // Supprimée entre-temps par un autre client
+                result = executeStatement(sqlDialect.dropTableIfExists(tableName));
+            }
+        } else {
+            result = executeStatement(sqlDialect.dropTableIfExists(tableName));
+        }
+        schemaCache.tableDropped(tableName);
+        return result;
+    }
+
+    private int executeTransactionalDdl(String tableName, String ddl) throws SQLException {
+        int result = executeStatement(ddl);
+        schemaCache.invalidate(tableName);
+        ddlInTransaction = true;
+        return result;
+    }
+
+    /*Vrai si une transaction est en cours sur la connexion suivie par le gestionnaire*/
+    private boolean inTransaction() throws SQLException {
+        return connection != null && !connection.isClosed() && !connection.getAutoCommit();
+    }
+
+    /*
+     * Fin d'une transaction ayant exécuté du DDL : ce que le cache a pu lire entre-temps (via d'autres connexions,
+     * qui ne voyaient pas le DDL non validé) ou ce qu'il croit savoir (DDL annulé) n'est plus fiable
+     */
+    private void endTransactionDdl() {
+        if (ddlInTransaction) {
+            ddlInTransaction = false;
+            schemaCache.invalidateAll();
         }
     }
 
@@ -88,15 +268,26 @@ public abstract class AbstractDatabaseManager implements DatabaseManager, AutoCl
      */
     private PreparedStatement prepareStatement(Connection conn, String query, Object... params) throws SQLException {
         PreparedStatement stmt = conn.prepareStatement(query);
-        // Définir les paramètres
-        for (int i = 0; i < params.length; i++) {
-            stmt.setObject(i + 1, params[i]);
-        }
+        // Définir les paramètres avec les accesseurs typés compilés pour cette requête
+        binderFor(query, params).bind(stmt, params);
         return stmt;
     }
 
+    /*Retourne l'affectation compilée pour la requête, recompilée si la signature des arguments a changé*/
+    private StatementBinder binderFor(String query, Object[] params) {
+        StatementBinder binder = binders.get(query);
+        if (binder == null || !binder.accepts(params)) {
+            binder = binder == null ? StatementBinder.compile(sqlDialect, params) : binder.refine(params);
+            if (binders.size() >= MAX_CACHED_BINDERS) {
+                binders.clear();
+            }
+            binders.put(query, binder);
+        }
+        return binder;
+    }
+
     private Connection getConnection() throws SQLException {
-        if (connection != null && !connection.isClosed() && !connection.getAutoCommit()) {
+        if (inTransaction()) {
             // Si nous sommes dans une transaction, retourner la connexion existante
             // mais ne pas la fermer à la fin du try-with-resources
             return createNonClosableConnectionProxy(connection);
@@ -111,25 +302,39 @@ public abstract class AbstractDatabaseManager implements DatabaseManager, AutoCl
         if (connection == null || connection.isClosed()) {
             connection = connect();
         }
+        long start = events.before(ExecutionEvent.Type.BEGIN, null);
         connection.setAutoCommit(false);
-        System.out.println("Transaction démarrée.");
+        events.after(ExecutionEvent.Type.BEGIN, null, start, -1, null);
     }
 
     @Override
     public void commitTransaction() throws SQLException {
         if (connection != null && !connection.isClosed()) {
-            connection.commit();
+            long start = events.before(ExecutionEvent.Type.COMMIT, null);
+            try {
+                connection.commit();
+            } catch (SQLException e) {
+                events.after(ExecutionEvent.Type.COMMIT, null, start, -1, e);
+                throw e;
+            } finally {
+                endTransactionDdl();
+            }
             connection.setAutoCommit(true);
-            System.out.println("Transaction validée.");
+            events.after(ExecutionEvent.Type.COMMIT, null, start, -1, null);
         }
     }
 
     @Override
     public void rollbackTransaction() throws SQLException {
         if (connection != null && !connection.isClosed()) {
-            connection.rollback();
+            long start = events.before(ExecutionEvent.Type.ROLLBACK, null);
+            try {
+                connection.rollback();
+            } finally {
+                endTransactionDdl();
+            }
             connection.setAutoCommit(true);
-            System.out.println("Transaction annulée.");
+            events.after(ExecutionEvent.Type.ROLLBACK, null, start, -1, null);
         }
     }
 
@@ -138,6 +343,11 @@ public abstract class AbstractDatabaseManager implements DatabaseManager, AutoCl
         return sqlDialect;
     }
 
+    @Override
+    public SchemaCache getSchemaCache() {
+        return schemaCache;
+    }
+
     /*
      * Crée un proxy pour la connexion qui ignore les appels à close()
      * conn La connexion à wrapper
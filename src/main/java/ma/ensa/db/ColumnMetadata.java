@@ -0,0 +1,48 @@
+package ma.ensa.db;
+
+/* Description d'une colonne lue dans DatabaseMetaData (voir SchemaCache) */
+public class ColumnMetadata {
+    private final String name;
+    private final int jdbcType;
+    private final String typeName;
+    private final int size;
+    private final int scale;
+    private final boolean nullable;
+
+    public ColumnMetadata(String name, int jdbcType, String typeName, int size, int scale, boolean nullable) {
+        this.name = name;
+        this.jdbcType = jdbcType;
+        this.typeName = typeName;
+        this.size = size;
+        this.scale = scale;
+        this.nullable = nullable;
+    }
+
+    /*Nom tel qu'enregistré dans le catalogue (majuscules sous Oracle par exemple)*/
+    public String getName() {
+        return name;
+    }
+
+    /*Type java.sql.Types, normalisé par le dialecte du SGBD (voir SQLDialect.toJdbcType)*/
+    public int getJdbcType() {
+        return jdbcType;
+    }
+
+    /*Nom natif du type dans le SGBD*/
+    public String getTypeName() {
+        return typeName;
+    }
+
+    /*Longueur maximale ou précision selon le type*/
+    public int getSize() {
+        return size;
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    public boolean isNullable() {
+        return nullable;
+    }
+}
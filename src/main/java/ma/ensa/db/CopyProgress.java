@@ -0,0 +1,56 @@
+package ma.ensa.db;
+
+/* Instantané de l'avancement d'une copie de table (voir TableCopier) */
+public class CopyProgress {
+    private final long rowsCopied;
+    private final long elapsedMillis;
+    private final int rangesDone;
+    private final int rangesTotal;
+    private final boolean resumed;
+
+    public CopyProgress(long rowsCopied, long elapsedMillis, int rangesDone, int rangesTotal) {
+        this(rowsCopied, elapsedMillis, rangesDone, rangesTotal, false);
+    }
+
+    public CopyProgress(long rowsCopied, long elapsedMillis, int rangesDone, int rangesTotal, boolean resumed) {
+        this.rowsCopied = rowsCopied;
+        this.elapsedMillis = elapsedMillis;
+        this.rangesDone = rangesDone;
+        this.rangesTotal = rangesTotal;
+        this.resumed = resumed;
+    }
+
+    /*Nombre de lignes copiées depuis le début de l'exécution courante*/
+    public long getRowsCopied() {
+        return rowsCopied;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /*Plages de clés terminées, y compris celles terminées lors d'une exécution précédente*/
+    public int getRangesDone() {
+        return rangesDone;
+    }
+
+    public int getRangesTotal() {
+        return rangesTotal;
+    }
+
+    /*Vrai si l'exécution courante reprend une copie interrompue*/
+    public boolean isResumed() {
+        return resumed;
+    }
+
+    /*Débit moyen de l'exécution courante*/
+    public double getRowsPerSecond() {
+        return elapsedMillis == 0 ? 0 : rowsCopied * 1000.0 / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d ligne(s) copiée(s), %d/%d plage(s), %.0f lignes/s%s",
+                rowsCopied, rangesDone, rangesTotal, getRowsPerSecond(), resumed ? " (reprise)" : "");
+    }
+}
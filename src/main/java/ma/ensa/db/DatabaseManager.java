@@ -3,14 +3,41 @@ import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Flow;
 /* Interface pour gérer la connexion à différents types de bases de données et exécuter des requêtes SQL */
 public interface DatabaseManager extends AutoCloseable {
     Connection connect() throws SQLException;
+    /*
+     * Ouvre une nouvelle connexion indépendante, non suivie par le gestionnaire (à fermer par l'appelant).
+     * Ses propriétés sont celles de l'URL, sans option de driver ajoutée par le gestionnaire
+     */
+    Connection openConnection() throws SQLException;
     void disconnect() throws SQLException;
     /* Execute une requete SQL de type SELECT */
     List<Map<String, Object>> executeQuery(String query, Object... params) throws SQLException;
+    /* Publie le résultat d'une requete SELECT ligne par ligne, au rythme de la demande des abonnés */
+    default Flow.Publisher<Map<String, Object>> publishQuery(String query, Object... params) {
+        return new QueryPublisher(this, query, params);
+    }
+    /*
+     * Parcourt le résultat d'une requete SELECT avec un curseur en flux, sans le charger en mémoire.
+     * Les colonnes LOB se lisent en InputStream/Reader valables pendant le traitement de la ligne.
+     * Dans une transaction, aucune autre requête ne doit être exécutée avant la fin du parcours (MySQL).
+     * @return le nombre de lignes traitées
+     */
+    long forEachRow(String query, RowHandler handler, Object... params) throws SQLException;
     /* Execute une requete SQL de type UPDATE, INSERT ou DELETE */
     int executeUpdate(String query, Object... params) throws SQLException;
+    /* Execute une requete SELECT à paramètres nommés (:nom) */
+    default List<Map<String, Object>> executeQuery(SqlTemplate template, Map<String, ?> params) throws SQLException {
+        SqlTemplate.Bound bound = template.bind(params);
+        return executeQuery(bound.getSql(), bound.getParameters());
+    }
+    /* Execute une requete UPDATE, INSERT ou DELETE à paramètres nommés (:nom) */
+    default int executeUpdate(SqlTemplate template, Map<String, ?> params) throws SQLException {
+        SqlTemplate.Bound bound = template.bind(params);
+        return executeUpdate(bound.getSql(), bound.getParameters());
+    }
     /* Commence une transaction */
     void beginTransaction() throws SQLException;
     /* Valide une transaction */
@@ -21,6 +48,15 @@ public interface DatabaseManager extends AutoCloseable {
     /*Retourne le dialecte SQL associé à cette implémentation*/
     SQLDialect getSQLDialect();
 
+    /*Retourne le cache des métadonnées du schéma (tables, colonnes, clés primaires)*/
+    SchemaCache getSchemaCache();
+
+    /* Enregistre un écouteur des connexions, requêtes, lots et transactions de ce gestionnaire */
+    void addExecutionListener(ExecutionListener listener);
+    void removeExecutionListener(ExecutionListener listener);
+    /* Publication des événements, pour les composants qui exécutent leurs propres lots (GroupCommitWriter...) */
+    ExecutionEventDispatcher getExecutionEvents();
+
     /*
      * Crée une table si elle n'existe pas déjà
      * tableName Nom de la table
@@ -22,7 +22,8 @@ public class DatabaseManagerFactory {
             case "sqlserver":
                 return new SQLServerManager(dbInfo[0], dbInfo[1], dbInfo[2], dbInfo[3]);
             case "oracle":
-                return new OracleManager(dbInfo[0], dbInfo[1], dbInfo[2], dbInfo[3]);
+                boolean numberOneAsBoolean = configLoader.getDatabaseOption("oracle", "numberOneAsBoolean", false);
+                return new OracleManager(dbInfo[0], dbInfo[1], dbInfo[2], dbInfo[3], numberOneAsBoolean);
             default:
                 throw new IllegalArgumentException("Type de base de données non supporté: " + dbType);
         }
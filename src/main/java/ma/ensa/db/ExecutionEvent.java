@@ -0,0 +1,73 @@
+package ma.ensa.db;
+
+/* Événement publié par un gestionnaire avant ou après une opération (voir ExecutionListener) */
+public class ExecutionEvent {
+
+    public enum Type { CONNECT, DISCONNECT, STATEMENT, BATCH, BEGIN, COMMIT, ROLLBACK }
+
+    public enum Phase { BEFORE, AFTER }
+
+    private final Type type;
+    private final Phase phase;
+    private final String database;
+    private final String sql;
+    private final long elapsedNanos;
+    private final long rowCount;
+    private final Throwable error;
+    private final String threadName;
+
+    public ExecutionEvent(Type type, Phase phase, String database, String sql, long elapsedNanos, long rowCount,
+                          Throwable error) {
+        this.type = type;
+        this.phase = phase;
+        this.database = database;
+        this.sql = sql;
+        this.elapsedNanos = elapsedNanos;
+        this.rowCount = rowCount;
+        this.error = error;
+        // Capturé à la publication : l'écouteur est appelé depuis un autre thread
+        this.threadName = Thread.currentThread().getName();
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Phase getPhase() {
+        return phase;
+    }
+
+    /*Nom du SGBD du gestionnaire (MySQL, PostgreSQL...)*/
+    public String getDatabase() {
+        return database;
+    }
+
+    /*Requête concernée, null pour les connexions et transactions*/
+    public String getSql() {
+        return sql;
+    }
+
+    /*Durée de l'opération (AFTER uniquement), -1 si inconnue*/
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /*Lignes lues ou affectées (AFTER d'une requête ou d'un lot), -1 sinon*/
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /*Erreur ayant interrompu l'opération (AFTER uniquement), null en cas de succès*/
+    public Throwable getError() {
+        return error;
+    }
+
+    /*Thread ayant exécuté l'opération*/
+    public String getThreadName() {
+        return threadName;
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
@@ -0,0 +1,180 @@
+package ma.ensa.db;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * Publie les événements d'un gestionnaire vers ses ExecutionListener.
+ * Sans écouteur, before()/after() se limitent à la lecture d'un champ volatile : aucun événement n'est construit.
+ * Avec des écouteurs, les événements sont déposés sans verrou dans un tampon circulaire lu par un thread dédié ;
+ * quand le tampon est plein l'événement est abandonné (voir getDroppedCount()) plutôt que de bloquer la requête.
+ * Le thread s'arrête dès que le tampon est vide et qu'il ne reste aucun écouteur (voir shutdown()), et redémarre
+ * au prochain addListener().
+ */
+public class ExecutionEventDispatcher {
+
+    private static final int DEFAULT_CAPACITY = 8192;
+    private static final ExecutionListener[] NO_LISTENERS = new ExecutionListener[0];
+
+    private final String database;
+    private final int mask;
+    private final AtomicReferenceArray<ExecutionEvent> ring;
+    /* Prochaine case à réserver par les producteurs */
+    private final AtomicLong tail = new AtomicLong();
+    /* Prochaine case à lire par le thread de distribution */
+    private volatile long head;
+    private final AtomicLong dropped = new AtomicLong();
+
+    private volatile ExecutionListener[] listeners = NO_LISTENERS;
+    private volatile Thread consumer;
+    private volatile boolean consumerWaiting;
+
+    public ExecutionEventDispatcher(String database) {
+        this(database, DEFAULT_CAPACITY);
+    }
+
+    /*capacity taille du tampon, arrondie à la puissance de deux supérieure*/
+    public ExecutionEventDispatcher(String database, int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.database = database;
+        this.mask = size - 1;
+        this.ring = new AtomicReferenceArray<>(size);
+    }
+
+    public synchronized void addListener(ExecutionListener listener) {
+        ExecutionListener[] updated = Arrays.copyOf(listeners, listeners.length + 1);
+        updated[listeners.length] = listener;
+        listeners = updated;
+        if (consumer == null) {
+            consumer = new Thread(this::runConsumer, "execution-listener-" + database);
+            consumer.setDaemon(true);
+            consumer.start();
+        }
+    }
+
+    /*Retire l'écouteur ; sans écouteur, le thread de distribution s'arrête une fois le tampon vidé*/
+    public void removeListener(ExecutionListener listener) {
+        Thread current;
+        synchronized (this) {
+            ExecutionListener[] updated = Arrays.stream(listeners).filter(l -> l != listener).toArray(ExecutionListener[]::new);
+            listeners = updated.length == 0 ? NO_LISTENERS : updated;
+            current = consumer;
+        }
+        if (listeners.length == 0 && current != null) {
+            LockSupport.unpark(current);
+        }
+    }
+
+    /*Retire tous les écouteurs et arrête le thread de distribution (appelé à la fermeture du gestionnaire)*/
+    public void shutdown() {
+        Thread current;
+        synchronized (this) {
+            listeners = NO_LISTENERS;
+            current = consumer;
+        }
+        if (current != null) {
+            LockSupport.unpark(current);
+        }
+    }
+
+    /*Vrai si au moins un écouteur est enregistré*/
+    public boolean isEnabled() {
+        return listeners.length != 0;
+    }
+
+    /*
+     * Publie l'événement BEFORE d'une opération
+     * @return l'instant de début à passer à after(), 0 sans écouteur
+     */
+    public long before(ExecutionEvent.Type type, String sql) {
+        if (listeners.length == 0) {
+            return 0;
+        }
+        publish(new ExecutionEvent(type, ExecutionEvent.Phase.BEFORE, database, sql, -1, -1, null));
+        return System.nanoTime();
+    }
+
+    /*Publie l'événement AFTER d'une opération ; rowCount -1 si non applicable, error null en cas de succès*/
+    public void after(ExecutionEvent.Type type, String sql, long startNanos, long rowCount, Throwable error) {
+        if (listeners.length == 0) {
+            return;
+        }
+        long elapsed = startNanos == 0 ? -1 : System.nanoTime() - startNanos;
+        publish(new ExecutionEvent(type, ExecutionEvent.Phase.AFTER, database, sql, elapsed, rowCount, error));
+    }
+
+    /*Nombre d'événements abandonnés faute de place dans le tampon*/
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /*
+     * Attend que les événements déjà publiés aient été remis aux écouteurs
+     * @return faux si le délai a expiré avant
+     */
+    public boolean awaitDelivery(long timeoutMillis) {
+        long target = tail.get();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (head < target) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        return true;
+    }
+
+    private void publish(ExecutionEvent event) {
+        long slot;
+        do {
+            slot = tail.get();
+            if (slot - head > mask) {
+                dropped.incrementAndGet();
+                return;
+            }
+        } while (!tail.compareAndSet(slot, slot + 1));
+        ring.set((int) (slot & mask), event);
+        if (consumerWaiting) {
+            Thread current = consumer;
+            if (current != null) {
+                LockSupport.unpark(current);
+            }
+        }
+    }
+
+    private void runConsumer() {
+        while (true) {
+            int index = (int) (head & mask);
+            ExecutionEvent event = ring.get(index);
+            if (event == null) {
+                // Plus d'écouteur : arrêter le thread (sous le verrou de addListener, qui en relance un au besoin)
+                synchronized (this) {
+                    if (listeners.length == 0) {
+                        consumer = null;
+                        return;
+                    }
+                }
+                // Tampon vide (ou case réservée mais pas encore écrite) : le producteur réveille le thread
+                // s'il voit consumerWaiting, sinon la relecture de la case ci-dessous voit son événement
+                consumerWaiting = true;
+                if (ring.get(index) == null) {
+                    LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(100));
+                }
+                consumerWaiting = false;
+                continue;
+            }
+            ring.lazySet(index, null);
+            head = head + 1;
+            for (ExecutionListener listener : listeners) {
+                try {
+                    listener.onEvent(event);
+                } catch (RuntimeException e) {
+                    // Un écouteur défaillant ne doit pas interrompre la distribution aux autres
+                }
+            }
+        }
+    }
+}
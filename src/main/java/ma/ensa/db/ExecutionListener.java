@@ -0,0 +1,13 @@
+package ma.ensa.db;
+
+/*
+ * Point d'extension pour observer l'activité d'un gestionnaire (traces, métriques, journalisation) :
+ * connexions, requêtes, lots et transactions, avant et après leur exécution.
+ * Les événements sont remis de façon asynchrone par un thread dédié (voir ExecutionEventDispatcher) :
+ * un écouteur lent ne ralentit jamais le thread qui exécute la requête, mais il peut perdre des événements
+ * si le tampon se remplit. Les écouteurs d'un même gestionnaire sont appelés dans l'ordre des événements.
+ */
+@FunctionalInterface
+public interface ExecutionListener {
+    void onEvent(ExecutionEvent event);
+}
@@ -0,0 +1,94 @@
+package ma.ensa.db;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ * Statistiques d'un GroupCommitWriter : taille des lots et durée des vidages.
+ * Les histogrammes sont par puissances de deux : la case i compte les valeurs v telles que 2^(i-1) <= v < 2^i
+ * (la case 0 compte les valeurs nulles), en nombre d'écritures pour les lots et en millisecondes pour les durées
+ */
+public class GroupCommitStats {
+    private static final int BUCKETS = 32;
+
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong writeCount = new AtomicLong();
+    private final AtomicLong failedFlushCount = new AtomicLong();
+    private final AtomicLong totalFlushNanos = new AtomicLong();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+    private final AtomicLong maxBatchSize = new AtomicLong();
+    private final AtomicLongArray batchSizeHistogram = new AtomicLongArray(BUCKETS);
+    private final AtomicLongArray flushMillisHistogram = new AtomicLongArray(BUCKETS);
+
+    /*Enregistre un vidage (appelé par le thread de vidage uniquement)*/
+    void record(int batchSize, long flushNanos, boolean failed) {
+        flushCount.incrementAndGet();
+        writeCount.addAndGet(batchSize);
+        if (failed) {
+            failedFlushCount.incrementAndGet();
+        }
+        totalFlushNanos.addAndGet(flushNanos);
+        maxFlushNanos.accumulateAndGet(flushNanos, Math::max);
+        maxBatchSize.accumulateAndGet(batchSize, Math::max);
+        batchSizeHistogram.incrementAndGet(bucket(batchSize));
+        flushMillisHistogram.incrementAndGet(bucket(flushNanos / 1_000_000));
+    }
+
+    private static int bucket(long value) {
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value));
+    }
+
+    public long getFlushCount() {
+        return flushCount.get();
+    }
+
+    public long getWriteCount() {
+        return writeCount.get();
+    }
+
+    /*Vidages dont le lot a échoué et a été rejoué écriture par écriture*/
+    public long getFailedFlushCount() {
+        return failedFlushCount.get();
+    }
+
+    public double getAverageBatchSize() {
+        long flushes = flushCount.get();
+        return flushes == 0 ? 0 : (double) writeCount.get() / flushes;
+    }
+
+    public long getMaxBatchSize() {
+        return maxBatchSize.get();
+    }
+
+    public double getAverageFlushMillis() {
+        long flushes = flushCount.get();
+        return flushes == 0 ? 0 : totalFlushNanos.get() / 1_000_000.0 / flushes;
+    }
+
+    public double getMaxFlushMillis() {
+        return maxFlushNanos.get() / 1_000_000.0;
+    }
+
+    public long[] getBatchSizeHistogram() {
+        return toArray(batchSizeHistogram);
+    }
+
+    public long[] getFlushMillisHistogram() {
+        return toArray(flushMillisHistogram);
+    }
+
+    private static long[] toArray(AtomicLongArray histogram) {
+        long[] values = new long[histogram.length()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = histogram.get(i);
+        }
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d vidage(s), %d écriture(s), lot moyen %.1f (max %d), vidage moyen %.2f ms (max %.2f ms)",
+                getFlushCount(), getWriteCount(), getAverageBatchSize(), getMaxBatchSize(),
+                getAverageFlushMillis(), getMaxFlushMillis());
+    }
+}
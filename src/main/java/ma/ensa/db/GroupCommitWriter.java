@@ -0,0 +1,314 @@
+package ma.ensa.db;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * Tampon d'écriture différée pour les petites écritures fréquentes (INSERT d'une ligne, etc.) venant de nombreux threads.
+ * Les écritures sont déposées dans une file sans verrou puis regroupées par un thread de vidage en lots JDBC
+ * validés en une seule transaction : un commit (et une écriture disque côté serveur) par lot au lieu d'un par ligne.
+ * Un vidage a lieu dès que maxBatchSize écritures attendent ou que la plus ancienne attend depuis maxDelayMillis.
+ * Le futur renvoyé par submit() est complété une fois la transaction validée ; les callbacks non asynchrones
+ * s'exécutent sur le thread de vidage et doivent donc rester courts (préférer thenApplyAsync, etc.)
+ */
+public class GroupCommitWriter implements AutoCloseable {
+
+    private final DatabaseManager manager;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+
+    private final ConcurrentLinkedQueue<PendingWrite> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    /* Places libres dans le tampon : une écriture libère sa place une fois validée (ou en échec) */
+    private final Semaphore capacity;
+    private final GroupCommitStats stats = new GroupCommitStats();
+    private final Thread flusher;
+    private volatile boolean closed;
+
+    /* Connexion dédiée du thread de vidage, rouverte après une erreur */
+    private Connection connection;
+
+    /*
+     * manager gestionnaire fournissant la connexion dédiée
+     * capacity nombre maximal d'écritures en attente avant de bloquer les appelants
+     * maxBatchSize nombre maximal d'écritures par transaction
+     * maxDelayMillis attente maximale d'une écriture avant vidage
+     */
+    public GroupCommitWriter(DatabaseManager manager, int capacity, int maxBatchSize, long maxDelayMillis) {
+        if (capacity < maxBatchSize || maxBatchSize < 1) {
+            throw new IllegalArgumentException("La capacité doit être supérieure ou égale à la taille de lot (>= 1)");
+        }
+        this.manager = manager;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.capacity = new Semaphore(capacity);
+        this.flusher = new Thread(this::runFlusher, "group-commit-writer");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    public GroupCommitWriter(DatabaseManager manager) {
+        this(manager, 10_000, 500, 10);
+    }
+
+    /*
+     * Dépose une écriture ; bloque tant que le tampon est plein (contre-pression)
+     * @return un futur complété par le nombre de lignes affectées une fois la transaction validée
+     */
+    public CompletableFuture<Integer> submit(String query, Object... params) {
+        if (closed) {
+            throw new IllegalStateException("GroupCommitWriter fermé");
+        }
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        try {
+            capacity.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.completeExceptionally(new SQLException("Écriture interrompue en attente de place dans le tampon", e));
+            return future;
+        }
+        PendingWrite write = new PendingWrite(query, params, future);
+        queue.offer(write);
+        int size = pending.incrementAndGet();
+        // Fermé pendant l'attente ou le dépôt : le thread de vidage et close() ont pu terminer sans voir l'écriture.
+        // Si elle est encore dans la file, la retirer et la refuser ; sinon l'un d'eux l'a prise et la complétera
+        if (closed && queue.remove(write)) {
+            pending.decrementAndGet();
+            reject(write);
+            return future;
+        }
+        // Réveiller le thread de vidage pour démarrer le délai ou vider un lot complet
+        if (size == 1 || size >= maxBatchSize) {
+            LockSupport.unpark(flusher);
+        }
+        return future;
+    }
+
+    public GroupCommitStats getStats() {
+        return stats;
+    }
+
+    /*Vide les écritures en attente, arrête le thread de vidage et ferme la connexion dédiée*/
+    @Override
+    public void close() throws SQLException {
+        closed = true;
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Écritures déposées pendant la fermeture, après le dernier vidage
+        PendingWrite write;
+        while ((write = queue.poll()) != null) {
+            pending.decrementAndGet();
+            reject(write);
+        }
+        closeConnection();
+    }
+
+    /*Refuse une écriture arrivée après la fermeture et libère sa place dans le tampon*/
+    private void reject(PendingWrite write) {
+        capacity.release();
+        write.future.completeExceptionally(new SQLException("GroupCommitWriter fermé avant le vidage"));
+    }
+
+    private void runFlusher() {
+        while (true) {
+            PendingWrite oldest = queue.peek();
+            if (oldest == null) {
+                if (closed) {
+                    return;
+                }
+                LockSupport.parkNanos(this, maxDelayNanos);
+                continue;
+            }
+            long wait = oldest.enqueuedNanos + maxDelayNanos - System.nanoTime();
+            if (!closed && wait > 0 && pending.get() < maxBatchSize) {
+                LockSupport.parkNanos(this, wait);
+                continue;
+            }
+            flush();
+        }
+    }
+
+    private void flush() {
+        List<PendingWrite> batch = new ArrayList<>(maxBatchSize);
+        PendingWrite write;
+        while (batch.size() < maxBatchSize && (write = queue.poll()) != null) {
+            batch.add(write);
+        }
+        pending.addAndGet(-batch.size());
+
+        long start = System.nanoTime();
+        // Résultat de chaque écriture : nombre de lignes (Integer) ou erreur (Throwable)
+        Object[] outcomes = new Object[batch.size()];
+        boolean failed = false;
+        int[] counts = null;
+        try {
+            counts = executeBatch(batch);
+        } catch (SQLException | RuntimeException e) {
+            // Une RuntimeException (affectation d'un paramètre...) ne doit pas arrêter le thread de vidage
+            rollbackQuietly();
+            failed = true;
+            executeOneByOne(batch, outcomes, e);
+        }
+        if (counts != null) {
+            try {
+                connection.commit();
+                for (int i = 0; i < batch.size(); i++) {
+                    outcomes[i] = counts[i];
+                }
+            } catch (SQLException | RuntimeException e) {
+                // Le serveur a pu valider avant la perte de la réponse : rejouer risquerait d'appliquer le lot deux fois
+                closeConnection();
+                failed = true;
+                Arrays.fill(outcomes, new SQLException("Échec de la validation du lot, résultat inconnu", e));
+            }
+        }
+        // Statistiques et places libérées avant de compléter les futurs : un appelant qui observe son résultat
+        // voit aussi le lot dans getStats()
+        stats.record(batch.size(), System.nanoTime() - start, failed);
+        capacity.release(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            if (outcomes[i] instanceof Throwable) {
+                batch.get(i).future.completeExceptionally((Throwable) outcomes[i]);
+            } else {
+                batch.get(i).future.complete((Integer) outcomes[i]);
+            }
+        }
+    }
+
+    /*
+     * Exécute le lot dans la transaction de la connexion, sans la valider (voir flush) ; les écritures consécutives
+     * de même SQL partagent un PreparedStatement
+     */
+    private int[] executeBatch(List<PendingWrite> batch) throws SQLException {
+        Connection conn = getConnection();
+        ExecutionEventDispatcher events = manager.getExecutionEvents();
+        int[] counts = new int[batch.size()];
+        try {
+            int start = 0;
+            while (start < batch.size()) {
+                String query = batch.get(start).query;
+                int end = start;
+                long eventStart = events.before(ExecutionEvent.Type.BATCH, query);
+                try (PreparedStatement stmt = conn.prepareStatement(query)) {
+                    StatementBinder binder = StatementBinder.compile(manager.getSQLDialect(), batch.get(start).params);
+                    while (end < batch.size() && batch.get(end).query.equals(query)) {
+                        Object[] params = batch.get(end).params;
+                        if (!binder.accepts(params)) {
+                            binder = binder.refine(params);
+                        }
+                        binder.bind(stmt, params);
+                        stmt.addBatch();
+                        end++;
+                    }
+                    int[] result = stmt.executeBatch();
+                    System.arraycopy(result, 0, counts, start, result.length);
+                } catch (SQLException e) {
+                    events.after(ExecutionEvent.Type.BATCH, query, eventStart, -1, e);
+                    throw e;
+                }
+                events.after(ExecutionEvent.Type.BATCH, query, eventStart, end - start, null);
+                start = end;
+            }
+            return counts;
+        } catch (SQLException e) {
+            rollbackQuietly();
+            throw e;
+        }
+    }
+
+    /*
+     * Après l'échec d'un lot, rejoue chaque écriture dans sa propre transaction pour isoler celles en erreur.
+     * Une écriture dont un paramètre est un flux n'est pas rejouée : le lot l'a déjà lu, en tout ou partie
+     */
+    private void executeOneByOne(List<PendingWrite> batch, Object[] outcomes, Exception batchError) {
+        for (int i = 0; i < batch.size(); i++) {
+            PendingWrite write = batch.get(i);
+            if (hasStream(write.params)) {
+                outcomes[i] = new SQLException("Échec du lot : une écriture avec un flux LOB ne peut pas être rejouée",
+                        batchError);
+                continue;
+            }
+            try {
+                Connection conn = getConnection();
+                try (PreparedStatement stmt = conn.prepareStatement(write.query)) {
+                    StatementBinder.compile(manager.getSQLDialect(), write.params).bind(stmt, write.params);
+                    int count = stmt.executeUpdate();
+                    conn.commit();
+                    outcomes[i] = count;
+                }
+            } catch (SQLException | RuntimeException e) {
+                rollbackQuietly();
+                outcomes[i] = e;
+            }
+        }
+    }
+
+    private static boolean hasStream(Object[] params) {
+        for (Object param : params) {
+            if (param instanceof InputStream || param instanceof Reader || param instanceof LobParameter) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Connection getConnection() throws SQLException {
+        if (connection == null || connection.isClosed()) {
+            connection = manager.openConnection();
+            connection.setAutoCommit(false);
+        }
+        return connection;
+    }
+
+    /*Annule la transaction en cours ; si la connexion est inutilisable elle sera rouverte au prochain vidage*/
+    private void rollbackQuietly() {
+        try {
+            if (connection != null) {
+                connection.rollback();
+            }
+        } catch (SQLException e) {
+            closeConnection();
+        }
+    }
+
+    private void closeConnection() {
+        try {
+            if (connection != null) {
+                connection.close();
+            }
+        } catch (SQLException e) {
+            // La connexion est abandonnée de toute façon
+        } finally {
+            connection = null;
+        }
+    }
+
+    private static class PendingWrite {
+        final String query;
+        final Object[] params;
+        final CompletableFuture<Integer> future;
+        final long enqueuedNanos = System.nanoTime();
+
+        PendingWrite(String query, Object[] params, CompletableFuture<Integer> future) {
+            this.query = query;
+            this.params = params;
+            this.future = future;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package ma.ensa.db;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/*
+ * Paramètre LOB dont la longueur est connue à l'avance (taille d'un fichier...).
+ * Passé à executeUpdate ou à un lot, il est affecté par setBinaryStream/setCharacterStream avec cette longueur :
+ * certains drivers (PostgreSQL pour bytea notamment) doivent sinon lire tout le flux en mémoire pour le mesurer.
+ * Un InputStream ou un Reader passé directement est accepté aussi, sans longueur.
+ */
+public abstract class LobParameter {
+
+    private final long length;
+
+    private LobParameter(long length) {
+        if (length < 0) {
+            throw new IllegalArgumentException("Longueur de LOB négative: " + length);
+        }
+        this.length = length;
+    }
+
+    /*Contenu binaire (BLOB, bytea, VARBINARY(MAX)) de length octets*/
+    public static LobParameter binary(InputStream stream, long length) {
+        return new Binary(stream, length);
+    }
+
+    /*Contenu texte (CLOB, TEXT, NVARCHAR(MAX)) de length caractères*/
+    public static LobParameter text(Reader reader, long length) {
+        return new Text(reader, length);
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    abstract void bind(PreparedStatement stmt, int index) throws SQLException;
+
+    /*
+     * Texte et binaire sont des classes distinctes : StatementBinder compile par classe et doit connaître le type SQL
+     * d'une valeur nulle (un NULL binaire est refusé par une colonne TEXT, et inversement)
+     */
+    static final class Binary extends LobParameter {
+        private final InputStream stream;
+
+        private Binary(InputStream stream, long length) {
+            super(length);
+            this.stream = stream;
+        }
+
+        @Override
+        void bind(PreparedStatement stmt, int index) throws SQLException {
+            if (stream == null) {
+                stmt.setNull(index, Types.LONGVARBINARY);
+            } else {
+                stmt.setBinaryStream(index, stream, getLength());
+            }
+        }
+    }
+
+    static final class Text extends LobParameter {
+        private final Reader reader;
+
+        private Text(Reader reader, long length) {
+            super(length);
+            this.reader = reader;
+        }
+
+        @Override
+        void bind(PreparedStatement stmt, int index) throws SQLException {
+            if (reader == null) {
+                stmt.setNull(index, Types.LONGVARCHAR);
+            } else {
+                stmt.setCharacterStream(index, reader, getLength());
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package ma.ensa.db;
+
+/*
+ * Écouteur qui affiche sur la console les messages de connexion et de transaction des gestionnaires,
+ * ainsi que les requêtes en erreur (et toutes les requêtes si logStatements est vrai).
+ * dbManager.addExecutionListener(new LoggingExecutionListener());
+ */
+public class LoggingExecutionListener implements ExecutionListener {
+
+    private final boolean logStatements;
+
+    public LoggingExecutionListener() {
+        this(false);
+    }
+
+    public LoggingExecutionListener(boolean logStatements) {
+        this.logStatements = logStatements;
+    }
+
+    @Override
+    public void onEvent(ExecutionEvent event) {
+        if (event.getPhase() != ExecutionEvent.Phase.AFTER) {
+            return;
+        }
+        if (!event.isSuccess()) {
+            System.err.println("Erreur (" + event.getType() + ") sur " + event.getDatabase()
+                    + (event.getSql() != null ? " pour " + event.getSql() : "") + ": " + event.getError().getMessage());
+            return;
+        }
+        switch (event.getType()) {
+            case CONNECT:
+                System.out.println("Connexion établie avec " + event.getDatabase() + ".");
+                break;
+            case DISCONNECT:
+                System.out.println("Connexion fermée avec succès.");
+                break;
+            case BEGIN:
+                System.out.println("Transaction démarrée.");
+                break;
+            case COMMIT:
+                System.out.println("Transaction validée.");
+                break;
+            case ROLLBACK:
+                System.out.println("Transaction annulée.");
+                break;
+            default:
+                if (logStatements) {
+                    System.out.printf("%s (%d ligne(s), %.2f ms)%n", event.getSql(), event.getRowCount(),
+                            event.getElapsedNanos() / 1_000_000.0);
+                }
+        }
+    }
+}
@@ -1,5 +1,14 @@
 package ma.ensa.db;
 
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.List;
+import java.util.stream.Collectors;
+
+
 /*Implémentation du dialecte SQL pour MySQL*/
 public class MySQLDialect implements SQLDialect {
 
@@ -12,6 +21,18 @@ public class MySQLDialect implements SQLDialect {
     public String dropTableIfExists(String tableName) {
         return "DROP TABLE IF EXISTS " + tableName;
     }
+    /*INSERT ... ON DUPLICATE KEY UPDATE (syntaxe VALUES(col), acceptée par toutes les versions de MySQL 5.x et 8)*/
+    @Override
+    public String upsert(String tableName, List<String> columns, List<String> keyColumns) {
+        List<String> updated = columns.stream().filter(column -> !SQLDialect.containsIgnoreCase(keyColumns, column))
+                .map(column -> column + " = VALUES(" + column + ")").collect(Collectors.toList());
+        if (updated.isEmpty()) {
+            // Aucune colonne hors clé : une affectation neutre ignore le doublon
+            updated.add(keyColumns.get(0) + " = " + keyColumns.get(0));
+        }
+        return "INSERT INTO " + tableName + " (" + String.join(", ", columns) + ") VALUES ("
+                + SQLDialect.placeholders(columns.size()) + ") ON DUPLICATE KEY UPDATE " + String.join(", ", updated);
+    }
 
     @Override
     public String countAll(String tableName) {
@@ -22,4 +43,43 @@ public class MySQLDialect implements SQLDialect {
     public String getAutoIncrementPrimaryKeyColumn(String columnName) {
         return columnName + " INT PRIMARY KEY AUTO_INCREMENT";
     }
+
+    /*Connector/J ne lit ligne par ligne que si la taille de fetch vaut Integer.MIN_VALUE*/
+    @Override
+    public void enableStreaming(Connection conn, Statement stmt, int fetchSize) throws SQLException {
+        stmt.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    /*En flux, Connector/J lit déjà ligne par ligne : la demande est régulée par le protocole réseau*/
+    @Override
+    public void adjustFetchSize(ResultSet rs, int fetchSize) {
+    }
+
+    @Override
+    public String columnType(int jdbcType, int precision, int scale) {
+        switch (jdbcType) {
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return "DOUBLE";
+            case Types.VARCHAR:
+            case Types.NVARCHAR:
+                return precision > 0 && precision <= 16383 ? "VARCHAR(" + precision + ")" : "LONGTEXT";
+            case Types.LONGVARCHAR:
+            case Types.LONGNVARCHAR:
+            case Types.CLOB:
+            case Types.NCLOB:
+                return "LONGTEXT";
+            case Types.TIMESTAMP:
+            case Types.TIMESTAMP_WITH_TIMEZONE:
+                // TIMESTAMP MySQL est limité à 2038, DATETIME couvre toute la plage
+                return "DATETIME(6)";
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+            case Types.BLOB:
+                return "LONGBLOB";
+            default:
+                return SQLDialect.super.columnType(jdbcType, precision, scale);
+        }
+    }
 }
\ No newline at end of file
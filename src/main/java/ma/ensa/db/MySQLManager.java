@@ -8,21 +8,19 @@ public class MySQLManager extends AbstractDatabaseManager {
     private final String driver;
 
     public MySQLManager(String driver, String url, String username, String password) {
-        super(url, username, password);
+        super("MySQL", url, username, password);
         this.driver = driver;
         this.sqlDialect = new MySQLDialect();
     }
 
     @Override
-    public Connection connect() throws SQLException {
+    public Connection openConnection() throws SQLException {
         try {
             // Charger le driver JDBC
             Class.forName(driver);
 
-            // Établir la connexion
-            connection = DriverManager.getConnection(url, username, password);
-            System.out.println("Connexion établie avec MySQL.");
-            return connection;
+            // Établir une connexion indépendante
+            return DriverManager.getConnection(url, username, password);
         } catch (ClassNotFoundException e) {
             throw new SQLException("Driver MySQL non trouvé: " + e.getMessage());
         }
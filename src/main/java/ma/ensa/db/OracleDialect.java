@@ -1,6 +1,29 @@
 package ma.ensa.db;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+import java.util.stream.Collectors;
+
 /*Implémentation du dialecte SQL pour Oracle*/
 public class OracleDialect implements SQLDialect {
+
+    /* NUMBER(1) lu comme BOOLEAN : à n'activer que si ces colonnes ne contiennent que 0 et 1 */
+    private final boolean numberOneAsBoolean;
+
+    public OracleDialect() {
+        this(false);
+    }
+
+    public OracleDialect(boolean numberOneAsBoolean) {
+        this.numberOneAsBoolean = numberOneAsBoolean;
+    }
+
     @Override
     public String createTableIfNotExists(String tableName, String columns) {
         return "BEGIN " +
@@ -10,6 +33,11 @@ public class OracleDialect implements SQLDialect {
                 "IF SQLCODE = -955 THEN NULL; ELSE RAISE; END IF; " +
                 "END;";
     }
+    /*Sans l'exception -955 : évite le bloc PL/SQL quand l'absence est déjà connue*/
+    @Override
+    public String createTable(String tableName, String columns) {
+        return "CREATE TABLE " + tableName + " (" + columns + ")";
+    }
     @Override
     public String dropTableIfExists(String tableName) {
         return "BEGIN " +
@@ -19,6 +47,19 @@ public class OracleDialect implements SQLDialect {
                 "IF SQLCODE != -942 THEN RAISE; END IF; " +
                 "END;";
     }
+    /*Oracle n'accepte pas VALUES comme source d'un MERGE : la ligne est construite à partir de DUAL*/
+    @Override
+    public String upsert(String tableName, List<String> columns, List<String> keyColumns) {
+        return "MERGE INTO " + tableName + " t USING (SELECT "
+                + columns.stream().map(column -> "? AS " + column).collect(Collectors.joining(", "))
+                + " FROM dual) s ON (" + SQLDialect.mergeCondition(keyColumns) + ")"
+                + SQLDialect.mergeActions(columns, keyColumns);
+    }
+    /*Sans l'exception -942 : évite le bloc PL/SQL quand l'existence est déjà connue*/
+    @Override
+    public String dropTable(String tableName) {
+        return "DROP TABLE " + tableName;
+    }
     @Override
     public String countAll(String tableName) {
         // Oracle renvoie COUNT(*) et non "count"
@@ -33,4 +74,88 @@ public class OracleDialect implements SQLDialect {
     public boolean useUpperCaseColumnNames() {
         return true;
     }
+    /*Les BLOB/CLOB sont lus par morceaux via leur locator, sans copie intermédiaire de la valeur entière*/
+    @Override
+    public InputStream openBinaryStream(ResultSet rs, int column) throws SQLException {
+        if (rs.getMetaData().getColumnType(column) == Types.BLOB) {
+            Blob blob = rs.getBlob(column);
+            return blob == null ? null : blob.getBinaryStream();
+        }
+        return rs.getBinaryStream(column);
+    }
+    @Override
+    public Reader openCharacterStream(ResultSet rs, int column) throws SQLException {
+        int type = rs.getMetaData().getColumnType(column);
+        if (type == Types.CLOB || type == Types.NCLOB) {
+            Clob clob = rs.getClob(column);
+            return clob == null ? null : clob.getCharacterStream();
+        }
+        return rs.getCharacterStream(column);
+    }
+    /*
+     * NUMBER est rapporté en NUMERIC (DECIMAL dans le catalogue) quelle que soit sa précision : retrouver les entiers.
+     * NUMBER(1) reste un entier (il peut contenir 2 à 9) sauf si numberOneAsBoolean est activé
+     */
+    @Override
+    public int toJdbcType(int jdbcType, String typeName, int precision, int scale) {
+        if ((jdbcType == Types.NUMERIC || jdbcType == Types.DECIMAL) && scale == 0 && precision > 0) {
+            if (precision == 1 && numberOneAsBoolean) {
+                return Types.BOOLEAN;
+            }
+            if (precision < 5) {
+                return Types.SMALLINT;
+            }
+            if (precision < 10) {
+                return Types.INTEGER;
+            }
+            if (precision < 19) {
+                return Types.BIGINT;
+            }
+        }
+        return SQLDialect.super.toJdbcType(jdbcType, typeName, precision, scale);
+    }
+    @Override
+    public String columnType(int jdbcType, int precision, int scale) {
+        switch (jdbcType) {
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return "NUMBER(1)";
+            case Types.TINYINT:
+            case Types.SMALLINT:
+                return "NUMBER(5)";
+            case Types.INTEGER:
+                return "NUMBER(10)";
+            case Types.BIGINT:
+                return "NUMBER(19)";
+            case Types.REAL:
+                return "BINARY_FLOAT";
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return "BINARY_DOUBLE";
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                return precision > 0 ? "NUMBER(" + precision + "," + Math.max(scale, 0) + ")" : "NUMBER";
+            case Types.VARCHAR:
+                return precision > 0 && precision <= 4000 ? "VARCHAR2(" + precision + ")" : "CLOB";
+            case Types.NVARCHAR:
+                return precision > 0 && precision <= 2000 ? "NVARCHAR2(" + precision + ")" : "NCLOB";
+            case Types.LONGVARCHAR:
+            case Types.CLOB:
+                return "CLOB";
+            case Types.LONGNVARCHAR:
+            case Types.NCLOB:
+                return "NCLOB";
+            case Types.TIME:
+            case Types.TIMESTAMP:
+                // Oracle n'a pas de type TIME
+                return "TIMESTAMP";
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+            case Types.BLOB:
+                return "BLOB";
+            default:
+                return SQLDialect.super.columnType(jdbcType, precision, scale);
+        }
+    }
 }
\ No newline at end of file
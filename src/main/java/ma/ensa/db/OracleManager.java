@@ -7,20 +7,23 @@ public class OracleManager extends AbstractDatabaseManager {
     private final String driver;
 
     public OracleManager(String driver, String url, String username, String password) {
-        super(url, username, password);
+        this(driver, url, username, password, false);
+    }
+
+    /* numberOneAsBoolean : lire les colonnes NUMBER(1) comme BOOLEAN (voir OracleDialect) */
+    public OracleManager(String driver, String url, String username, String password, boolean numberOneAsBoolean) {
+        super("Oracle", url, username, password);
         this.driver = driver;
-        this.sqlDialect = new OracleDialect();
+        this.sqlDialect = new OracleDialect(numberOneAsBoolean);
     }
     @Override
-    public Connection connect() throws SQLException {
+    public Connection openConnection() throws SQLException {
         try {
             // Charger le driver JDBC
             Class.forName(driver);
 
-            // Établir la connexion
-            connection = DriverManager.getConnection(url, username, password);
-            System.out.println("Connexion établie avec Oracle.");
-            return connection;
+            // Établir une connexion indépendante
+            return DriverManager.getConnection(url, username, password);
         } catch (ClassNotFoundException e) {
             throw new SQLException("Driver Oracle non trouvé: " + e.getMessage());
         }
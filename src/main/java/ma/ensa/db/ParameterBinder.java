@@ -0,0 +1,10 @@
+package ma.ensa.db;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/* Affecte la valeur d'un paramètre avec l'accesseur JDBC adapté à son type (voir StatementBinder) */
+@FunctionalInterface
+public interface ParameterBinder {
+    void bind(PreparedStatement stmt, int index, Object value) throws SQLException;
+}
@@ -1,5 +1,16 @@
 package ma.ensa.db;
 
+import java.io.InputStream;
+import java.sql.Blob;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.List;
+import java.util.stream.Collectors;
+
+
 /*Implémentation du dialecte SQL pour PostgreSQL*/
 public class PostgreSQLDialect implements SQLDialect {
 
@@ -12,6 +23,20 @@ public class PostgreSQLDialect implements SQLDialect {
     public String dropTableIfExists(String tableName) {
         return "DROP TABLE IF EXISTS " + tableName;
     }
+    @Override
+    public String upsert(String tableName, List<String> columns, List<String> keyColumns) {
+        List<String> updated = columns.stream().filter(column -> !SQLDialect.containsIgnoreCase(keyColumns, column))
+                .map(column -> column + " = EXCLUDED." + column).collect(Collectors.toList());
+        return "INSERT INTO " + tableName + " (" + String.join(", ", columns) + ") VALUES ("
+                + SQLDialect.placeholders(columns.size()) + ") ON CONFLICT (" + String.join(", ", keyColumns) + ") "
+                + (updated.isEmpty() ? "DO NOTHING" : "DO UPDATE SET " + String.join(", ", updated));
+    }
+
+    /*Les identifiants non délimités sont stockés en minuscules*/
+    @Override
+    public String toMetadataName(String identifier) {
+        return identifier.toLowerCase();
+    }
 
     @Override
     public String countAll(String tableName) {
@@ -22,4 +47,57 @@ public class PostgreSQLDialect implements SQLDialect {
     public String getAutoIncrementPrimaryKeyColumn(String columnName) {
         return columnName + " SERIAL PRIMARY KEY";
     }
+
+    /*Le driver PostgreSQL n'utilise un curseur côté serveur qu'en dehors du mode auto-commit*/
+    @Override
+    public void enableStreaming(Connection conn, Statement stmt, int fetchSize) throws SQLException {
+        conn.setAutoCommit(false);
+        stmt.setFetchSize(fetchSize);
+    }
+
+    /*
+     * bytea est entièrement transmis avec la ligne ; seuls les « large objects » (colonne oid) se lisent
+     * réellement en flux, via l'API Blob et dans une transaction (garantie par enableStreaming)
+     */
+    @Override
+    public InputStream openBinaryStream(ResultSet rs, int column) throws SQLException {
+        if ("oid".equals(rs.getMetaData().getColumnTypeName(column))) {
+            Blob blob = rs.getBlob(column);
+            return blob == null ? null : blob.getBinaryStream();
+        }
+        return rs.getBinaryStream(column);
+    }
+
+    /*BLOB et CLOB désignent des large objects (oid) pour le driver : les colonnes créées sont en BYTEA et TEXT*/
+    @Override
+    public int nullType(int jdbcType) {
+        switch (jdbcType) {
+            case Types.BLOB:
+                return Types.BINARY;
+            case Types.CLOB:
+            case Types.NCLOB:
+                return Types.VARCHAR;
+            default:
+                return jdbcType;
+        }
+    }
+
+    @Override
+    public String columnType(int jdbcType, int precision, int scale) {
+        switch (jdbcType) {
+            case Types.TINYINT:
+                return "SMALLINT";
+            case Types.VARCHAR:
+            case Types.NVARCHAR:
+                // text et varchar sans longueur sont rapportés avec une précision de Integer.MAX_VALUE
+                return precision > 0 && precision <= 10485760 ? "VARCHAR(" + precision + ")" : "TEXT";
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+            case Types.BLOB:
+                return "BYTEA";
+            default:
+                return SQLDialect.super.columnType(jdbcType, precision, scale);
+        }
+    }
 }
\ No newline at end of file
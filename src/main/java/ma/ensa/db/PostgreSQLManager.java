@@ -7,20 +7,18 @@ public class PostgreSQLManager extends AbstractDatabaseManager {
     private final String driver;
 
     public PostgreSQLManager(String driver, String url, String username, String password) {
-        super(url, username, password);
+        super("PostgreSQL", url, username, password);
         this.driver = driver;
         this.sqlDialect = new PostgreSQLDialect();
     }
     @Override
-    public Connection connect() throws SQLException {
+    public Connection openConnection() throws SQLException {
         try {
             // Charger le driver JDBC
             Class.forName(driver);
 
-            // Établir la connexion
-            connection = DriverManager.getConnection(url, username, password);
-            System.out.println("Connexion établie avec PostgreSQL.");
-            return connection;
+            // Établir une connexion indépendante
+            return DriverManager.getConnection(url, username, password);
         } catch (ClassNotFoundException e) {
             throw new SQLException("Driver PostgreSQL non trouvé: " + e.getMessage());
         }
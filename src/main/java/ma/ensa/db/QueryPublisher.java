@@ -0,0 +1,270 @@
+package ma.ensa.db;
+
+import java.sql.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Résultat d'une requête SELECT publié ligne par ligne selon la demande des abonnés (java.util.concurrent.Flow).
+ * Chaque abonnement exécute la requête sur sa propre connexion, ouverte à la première demande, et ne lit
+ * dans le ResultSet que les lignes demandées ; la taille de fetch JDBC suit la demande en cours, de sorte
+ * qu'un abonné lent freine la lecture jusqu'à la base. L'annulation interrompt la requête en cours et ferme
+ * immédiatement le statement et la connexion. Les lignes ont le même format que executeQuery.
+ * Le JDBC étant bloquant, la lecture et les appels aux abonnés ont lieu sur l'Executor fourni.
+ */
+public class QueryPublisher implements Flow.Publisher<Map<String, Object>> {
+
+    private static final int MIN_FETCH_SIZE = 16;
+    private static final int MAX_FETCH_SIZE = 10_000;
+
+    /* Threads dédiés aux lectures bloquantes, pour ne pas occuper le pool commun */
+    private static final ExecutorService DEFAULT_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "query-publisher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final DatabaseManager manager;
+    private final Executor executor;
+    private final String query;
+    private final Object[] params;
+
+    public QueryPublisher(DatabaseManager manager, String query, Object... params) {
+        this(manager, DEFAULT_EXECUTOR, query, params);
+    }
+
+    public QueryPublisher(DatabaseManager manager, Executor executor, String query, Object... params) {
+        this.manager = manager;
+        this.executor = executor;
+        this.query = query;
+        this.params = params;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Map<String, Object>> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        subscriber.onSubscribe(new QuerySubscription(subscriber));
+    }
+
+    private static int fetchSizeFor(long demand) {
+        return (int) Math.max(MIN_FETCH_SIZE, Math.min(MAX_FETCH_SIZE, demand));
+    }
+
+    /*
+     * Abonnement : request() et cancel() ne font que signaler ; toute la lecture se fait dans run(),
+     * jamais exécuté par deux threads à la fois (compteur wip)
+     */
+    private final class QuerySubscription implements Flow.Subscription, Runnable {
+        private final Flow.Subscriber<? super Map<String, Object>> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile Throwable invalidRequest;
+        /* Statement en cours d'exécution, pour que cancel() puisse interrompre une lecture bloquée */
+        private volatile Statement activeStatement;
+
+        // État manipulé uniquement par run()
+        private boolean done;
+        private boolean started;
+        private Connection connection;
+        private PreparedStatement statement;
+        private ResultSet resultSet;
+        private String[] columnNames;
+        private int[] columnTypes;
+        private int fetchSize;
+        private long emitted;
+        private long eventStart;
+
+        QuerySubscription(Flow.Subscriber<? super Map<String, Object>> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                // Règle 3.9 de Reactive Streams
+                invalidRequest = new IllegalArgumentException("La demande doit être strictement positive: " + n);
+            } else {
+                demand.accumulateAndGet(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            Statement current = activeStatement;
+            if (current != null) {
+                try {
+                    current.cancel();
+                } catch (SQLException e) {
+                    // Statement déjà terminé : la fermeture suffit
+                }
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() == 0) {
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    rejected(e);
+                }
+            }
+        }
+
+        /*
+         * Exécuteur arrêté : ce thread détient le droit d'exécution (wip), il termine donc lui-même l'abonnement,
+         * en fermant le curseur éventuellement ouvert par un parcours précédent
+         */
+        private void rejected(RejectedExecutionException error) {
+            int missed = 1;
+            do {
+                if (!done) {
+                    finish(error);
+                    if (!cancelled) {
+                        signalError(error);
+                    }
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                drain();
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drain() {
+            if (done) {
+                return;
+            }
+            if (cancelled) {
+                finish(null);
+                return;
+            }
+            if (invalidRequest != null) {
+                finish(invalidRequest);
+                signalError(invalidRequest);
+                return;
+            }
+            long requested = demand.get();
+            if (requested == 0) {
+                return;
+            }
+            try {
+                if (resultSet == null) {
+                    open(requested);
+                } else if (fetchSizeFor(requested) != fetchSize) {
+                    fetchSize = fetchSizeFor(requested);
+                    manager.getSQLDialect().adjustFetchSize(resultSet, fetchSize);
+                }
+                long sent = 0;
+                while (sent < requested) {
+                    if (cancelled) {
+                        finish(null);
+                        return;
+                    }
+                    if (!resultSet.next()) {
+                        finish(null);
+                        subscriber.onComplete();
+                        return;
+                    }
+                    subscriber.onNext(readRow());
+                    sent++;
+                    emitted++;
+                }
+                if (requested != Long.MAX_VALUE) {
+                    demand.addAndGet(-sent);
+                }
+            } catch (SQLException | RuntimeException e) {
+                // Erreur JDBC, de conversion ou levée par l'abonné lui-même : libérer les ressources dans tous les cas
+                boolean terminated = done;
+                finish(e);
+                // Une erreur provoquée par l'annulation (ou après onComplete) n'est pas signalée à l'abonné
+                if (!terminated && !cancelled) {
+                    signalError(e);
+                }
+            }
+        }
+
+        /*onError ne doit pas faire sortir l'exception de run(), sinon wip ne serait jamais décrémenté*/
+        private void signalError(Throwable error) {
+            try {
+                subscriber.onError(error);
+            } catch (RuntimeException e) {
+                // Abonné défaillant : l'abonnement est déjà terminé
+            }
+        }
+
+        private void open(long requested) throws SQLException {
+            started = true;
+            eventStart = manager.getExecutionEvents().before(ExecutionEvent.Type.STATEMENT, query);
+            connection = manager.openConnection();
+            statement = connection.prepareStatement(query);
+            StatementBinder.compile(manager.getSQLDialect(), params).bind(statement, params);
+            fetchSize = fetchSizeFor(requested);
+            manager.getSQLDialect().enableStreaming(connection, statement, fetchSize);
+            activeStatement = statement;
+            if (cancelled) {
+                // Annulé pendant l'ouverture : cancel() n'a pas pu voir le statement
+                throw new SQLException("Requête annulée");
+            }
+            resultSet = statement.executeQuery();
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            columnNames = new String[metaData.getColumnCount()];
+            columnTypes = new int[columnNames.length];
+            for (int i = 0; i < columnNames.length; i++) {
+                // Même convention que executeQuery : libellés en minuscules
+                columnNames[i] = metaData.getColumnLabel(i + 1).toLowerCase();
+                columnTypes[i] = metaData.getColumnType(i + 1);
+            }
+        }
+
+        private Map<String, Object> readRow() throws SQLException {
+            Map<String, Object> row = new HashMap<>();
+            for (int i = 0; i < columnNames.length; i++) {
+                row.put(columnNames[i], manager.getSQLDialect().readValue(resultSet, i + 1, columnTypes[i]));
+            }
+            return row;
+        }
+
+        /*Ferme le curseur, le statement et la connexion, puis publie la fin de la requête aux écouteurs*/
+        private void finish(Throwable error) {
+            if (done) {
+                return;
+            }
+            done = true;
+            activeStatement = null;
+            closeQuietly(resultSet);
+            closeQuietly(statement);
+            closeQuietly(connection);
+            resultSet = null;
+            statement = null;
+            connection = null;
+            if (started) {
+                manager.getExecutionEvents().after(ExecutionEvent.Type.STATEMENT, query, eventStart, emitted,
+                        cancelled ? null : error);
+            }
+        }
+
+        private void closeQuietly(AutoCloseable resource) {
+            if (resource != null) {
+                try {
+                    resource.close();
+                } catch (Exception e) {
+                    // Fermeture au mieux : la ressource est abandonnée
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package ma.ensa.db;
+
+import java.sql.SQLException;
+
+/* Traitement d'une ligne lue par un curseur en flux (voir DatabaseManager.forEachRow) */
+@FunctionalInterface
+public interface RowHandler {
+    void handle(StreamingRow row) throws SQLException;
+}
@@ -1,5 +1,17 @@
 package ma.ensa.db;
 
+import java.io.InputStream;
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
 /* Interface qui définit les dialectes SQL spécifiques à chaque SGBD */
 public interface SQLDialect {
     /*Retourne la requête SQL pour créer une table si elle n'existe pas*/
@@ -8,6 +20,28 @@ public interface SQLDialect {
     /*Retourne la requête SQL pour supprimer une table si elle existe*/
     String dropTableIfExists(String tableName);
 
+    /*
+     * Retourne la requête SQL pour créer une table dont on sait qu'elle n'existe pas (voir SchemaCache).
+     * Par défaut identique à createTableIfNotExists, à redéfinir quand la vérification d'existence a un coût
+     */
+    default String createTable(String tableName, String columns) {
+        return createTableIfNotExists(tableName, columns);
+    }
+
+    /*Retourne la requête SQL pour supprimer une table dont on sait qu'elle existe (voir SchemaCache)*/
+    default String dropTable(String tableName) {
+        return dropTableIfExists(tableName);
+    }
+
+    /*
+     * Retourne une requête paramétrée (un ? par colonne, dans l'ordre de columns) qui insère la ligne ou met à jour
+     * ses autres colonnes si la clé existe déjà. Par défaut MERGE de la norme SQL
+     */
+    default String upsert(String tableName, List<String> columns, List<String> keyColumns) {
+        return "MERGE INTO " + tableName + " t USING (VALUES (" + placeholders(columns.size()) + ")) s ("
+                + String.join(", ", columns) + ") ON " + mergeCondition(keyColumns) + mergeActions(columns, keyColumns);
+    }
+
     /*Retourne la requête SQL pour compter le nombre d'enregistrements*/
     String countAll(String tableName);
 
@@ -21,4 +55,175 @@ public interface SQLDialect {
     default boolean useUpperCaseColumnNames() {
         return false;
     }
-}
\ No newline at end of file
+
+    /*Retourne le nom d'une table tel que stocké dans le catalogue, pour les recherches via DatabaseMetaData*/
+    default String toMetadataName(String identifier) {
+        return useUpperCaseColumnNames() ? identifier.toUpperCase() : identifier;
+    }
+
+    /*Configure une requête pour que le driver lise les lignes en flux plutôt que de tout charger en mémoire*/
+    default void enableStreaming(Connection conn, Statement stmt, int fetchSize) throws SQLException {
+        stmt.setFetchSize(fetchSize);
+    }
+
+    /*
+     * Lit une valeur pour executeQuery : les BLOB/CLOB sont copiés en byte[]/String pour rester valides
+     * une fois la connexion fermée (pour les gros LOB, utiliser un curseur en flux : forEachRow)
+     */
+    default Object readValue(ResultSet rs, int column, int jdbcType) throws SQLException {
+        switch (jdbcType) {
+            case Types.BLOB:
+                return rs.getBytes(column);
+            case Types.CLOB:
+            case Types.NCLOB:
+                return rs.getString(column);
+            default:
+                return rs.getObject(column);
+        }
+    }
+
+    /*
+     * Lit une valeur à transférer vers un autre SGBD (copie et synchronisation de tables) avec l'accesseur adapté
+     * à son type portable, pour obtenir des objets Java standard que le driver cible sait affecter quel que soit
+     * le driver source (java.sql.Date/Time/Timestamp, byte[], String)
+     */
+    default Object readTransferValue(ResultSet rs, int column, int jdbcType) throws SQLException {
+        switch (jdbcType) {
+            case Types.DATE:
+                return rs.getDate(column);
+            case Types.TIME:
+                return rs.getTime(column);
+            case Types.TIMESTAMP:
+            case Types.TIMESTAMP_WITH_TIMEZONE:
+                return rs.getTimestamp(column);
+            case Types.BOOLEAN:
+                boolean flag = rs.getBoolean(column);
+                return rs.wasNull() ? null : flag;
+            case Types.LONGVARCHAR:
+            case Types.LONGNVARCHAR:
+            case Types.CLOB:
+            case Types.NCLOB:
+                return rs.getString(column);
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+            case Types.BLOB:
+                return rs.getBytes(column);
+            default:
+                return rs.getObject(column);
+        }
+    }
+
+    /*Ouvre un flux sur une colonne binaire de la ligne courante, valable jusqu'au passage à la ligne suivante*/
+    default InputStream openBinaryStream(ResultSet rs, int column) throws SQLException {
+        return rs.getBinaryStream(column);
+    }
+
+    /*Ouvre un flux sur une colonne texte de la ligne courante, valable jusqu'au passage à la ligne suivante*/
+    default Reader openCharacterStream(ResultSet rs, int column) throws SQLException {
+        return rs.getCharacterStream(column);
+    }
+
+    /*Affecte un paramètre chaîne (voir StatementBinder)*/
+    default void bindString(PreparedStatement stmt, int index, String value) throws SQLException {
+        stmt.setString(index, value);
+    }
+
+    /*
+     * Type SQL à passer à setNull pour une valeur nulle de ce type portable, écrite dans une colonne créée par
+     * columnType (le type déclaré par le driver pour le NULL doit être compatible avec celui de la colonne)
+     */
+    default int nullType(int jdbcType) {
+        return jdbcType;
+    }
+
+    /*Ajuste le nombre de lignes ramenées par aller-retour d'un curseur en flux déjà ouvert*/
+    default void adjustFetchSize(ResultSet rs, int fetchSize) throws SQLException {
+        rs.setFetchSize(fetchSize);
+    }
+
+    /*
+     * Normalise un type de colonne lu dans les métadonnées de ce SGBD vers un type java.sql.Types portable
+     * jdbcType le type rapporté par le driver, typeName le nom natif du type
+     */
+    default int toJdbcType(int jdbcType, String typeName, int precision, int scale) {
+        // BIT(1) est la représentation habituelle des booléens
+        if (jdbcType == Types.BIT && precision <= 1) {
+            return Types.BOOLEAN;
+        }
+        return jdbcType;
+    }
+
+    /*Retourne la déclaration de type de colonne de ce SGBD pour un type java.sql.Types*/
+    default String columnType(int jdbcType, int precision, int scale) {
+        switch (jdbcType) {
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return "BOOLEAN";
+            case Types.TINYINT:
+            case Types.SMALLINT:
+                return "SMALLINT";
+            case Types.INTEGER:
+                return "INT";
+            case Types.BIGINT:
+                return "BIGINT";
+            case Types.REAL:
+                return "REAL";
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return "DOUBLE PRECISION";
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                return precision > 0 ? "DECIMAL(" + precision + "," + Math.max(scale, 0) + ")" : "DECIMAL";
+            case Types.CHAR:
+            case Types.NCHAR:
+                return "CHAR(" + Math.max(precision, 1) + ")";
+            case Types.VARCHAR:
+            case Types.NVARCHAR:
+                return precision > 0 && precision <= 4000 ? "VARCHAR(" + precision + ")" : "TEXT";
+            case Types.LONGVARCHAR:
+            case Types.LONGNVARCHAR:
+            case Types.CLOB:
+            case Types.NCLOB:
+                return "TEXT";
+            case Types.DATE:
+                return "DATE";
+            case Types.TIME:
+                return "TIME";
+            case Types.TIMESTAMP:
+                return "TIMESTAMP";
+            case Types.TIMESTAMP_WITH_TIMEZONE:
+                return "TIMESTAMP WITH TIME ZONE";
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+            case Types.BLOB:
+                return "BLOB";
+            default:
+                throw new IllegalArgumentException("Type JDBC non supporté: " + jdbcType);
+        }
+    }
+
+    /*Liste de n paramètres « ?, ?, ... »*/
+    static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    /*Condition de jointure d'un MERGE entre la table (alias t) et la ligne fournie (alias s)*/
+    static String mergeCondition(List<String> keyColumns) {
+        return keyColumns.stream().map(key -> "t." + key + " = s." + key).collect(Collectors.joining(" AND "));
+    }
+
+    /*Clauses WHEN d'un MERGE : mise à jour des colonnes hors clé, sinon insertion*/
+    static String mergeActions(List<String> columns, List<String> keyColumns) {
+        List<String> updated = columns.stream().filter(column -> !containsIgnoreCase(keyColumns, column))
+                .map(column -> column + " = s." + column).collect(Collectors.toList());
+        return (updated.isEmpty() ? "" : " WHEN MATCHED THEN UPDATE SET " + String.join(", ", updated))
+                + " WHEN NOT MATCHED THEN INSERT (" + String.join(", ", columns) + ") VALUES ("
+                + columns.stream().map(column -> "s." + column).collect(Collectors.joining(", ")) + ")";
+    }
+
+    static boolean containsIgnoreCase(List<String> names, String name) {
+        return names.stream().anyMatch(name::equalsIgnoreCase);
+    }
+}
@@ -1,8 +1,30 @@
 package ma.ensa.db;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+
+
 /*Implémentation du dialecte SQL pour SQL Server*/
 public class SQLServerDialect implements SQLDialect {
 
+    /*
+     * Si l'URL indique sendStringParametersAsUnicode=false, setString envoie du VARCHAR, comparable sans conversion
+     * aux colonnes VARCHAR indexées ; une chaîne non ASCII part alors en NVARCHAR (setNString) pour ne pas être
+     * ramenée à la page de code du serveur. Sans cette option (valeur par défaut du driver), tout part en NVARCHAR
+     */
+    @Override
+    public void bindString(PreparedStatement stmt, int index, String value) throws SQLException {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 128) {
+                stmt.setNString(index, value);
+                return;
+            }
+        }
+        stmt.setString(index, value);
+    }
+
     @Override
     public String createTableIfNotExists(String tableName, String columns) {
         return "IF NOT EXISTS (SELECT * FROM sys.tables WHERE name = '" + tableName + "') " +
@@ -10,10 +32,25 @@ public class SQLServerDialect implements SQLDialect {
                 "CREATE TABLE " + tableName + " (" + columns + ") " +
                 "END";
     }
+    /*Sans la requête sur sys.tables : utilisé quand l'absence est déjà connue*/
+    @Override
+    public String createTable(String tableName, String columns) {
+        return "CREATE TABLE " + tableName + " (" + columns + ")";
+    }
     @Override
     public String dropTableIfExists(String tableName) {
         return "IF OBJECT_ID('" + tableName + "', 'U') IS NOT NULL DROP TABLE " + tableName;
     }
+    /*SQL Server exige qu'un MERGE se termine par un point-virgule*/
+    @Override
+    public String upsert(String tableName, List<String> columns, List<String> keyColumns) {
+        return SQLDialect.super.upsert(tableName, columns, keyColumns) + ";";
+    }
+
+    @Override
+    public String dropTable(String tableName) {
+        return "DROP TABLE " + tableName;
+    }
 
     @Override
     public String countAll(String tableName) {
@@ -23,4 +60,39 @@ public class SQLServerDialect implements SQLDialect {
     public String getAutoIncrementPrimaryKeyColumn(String columnName) {
         return columnName + " INT IDENTITY(1,1) PRIMARY KEY";
     }
+
+    @Override
+    public String columnType(int jdbcType, int precision, int scale) {
+        switch (jdbcType) {
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return "BIT";
+            case Types.TINYINT:
+                return "TINYINT";
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return "FLOAT";
+            case Types.VARCHAR:
+                return precision > 0 && precision <= 8000 ? "VARCHAR(" + precision + ")" : "VARCHAR(MAX)";
+            case Types.NVARCHAR:
+                return precision > 0 && precision <= 4000 ? "NVARCHAR(" + precision + ")" : "NVARCHAR(MAX)";
+            case Types.LONGVARCHAR:
+            case Types.CLOB:
+                return "VARCHAR(MAX)";
+            case Types.LONGNVARCHAR:
+            case Types.NCLOB:
+                return "NVARCHAR(MAX)";
+            case Types.TIMESTAMP:
+                return "DATETIME2";
+            case Types.TIMESTAMP_WITH_TIMEZONE:
+                return "DATETIMEOFFSET";
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+            case Types.BLOB:
+                return "VARBINARY(MAX)";
+            default:
+                return SQLDialect.super.columnType(jdbcType, precision, scale);
+        }
+    }
 }
\ No newline at end of file
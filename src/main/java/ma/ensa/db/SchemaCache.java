@@ -0,0 +1,290 @@
+package ma.ensa.db;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+ * Cache des métadonnées du schéma courant d'un gestionnaire (tables, colonnes, types, clés primaires),
+ * lu via DatabaseMetaData. Les tables sont décrites à la première demande, ou toutes à la fois par prefetch().
+ * Les helpers DDL du gestionnaire s'en servent pour éviter les sondages répétés du catalogue et le tiennent à jour ;
+ * les autres ordres DDL passés à executeUpdate invalident la table concernée (ou tout le cache si elle n'est pas
+ * identifiable). Les modifications faites par d'autres clients ne sont vues qu'après invalidate()/invalidateAll().
+ */
+public class SchemaCache {
+
+    private static final Pattern TABLE_DDL = Pattern.compile(
+            "^\\s*(?:CREATE|ALTER|DROP)\\s+TABLE\\s+(?:IF\\s+(?:NOT\\s+)?EXISTS\\s+)?([\\w.$#\"\\[\\]]+)",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern OTHER_DDL = Pattern.compile(
+            "\\b(?:CREATE|ALTER|DROP|RENAME)\\s", Pattern.CASE_INSENSITIVE);
+    /* Débuts d'ordres pouvant contenir du DDL : DDL direct, blocs PL/SQL ou T-SQL (EXECUTE IMMEDIATE, IF ... CREATE) */
+    private static final String[] DDL_PREFIXES = {"CREATE", "ALTER", "DROP", "RENAME", "BEGIN", "DECLARE", "IF", "EXEC"};
+    /* Valeurs de TABLE_TYPE (getTables) désignant une table de base, selon les drivers */
+    private static final Set<String> BASE_TABLE_TYPES = Set.of("TABLE", "BASE TABLE", "PARTITIONED TABLE");
+
+    private final DatabaseManager manager;
+    /* Par nom de table en minuscules : Optional.empty() pour une table connue comme absente */
+    private final Map<String, Optional<TableMetadata>> tables = new ConcurrentHashMap<>();
+    /* Tables invalidées depuis le dernier prefetch : leur absence du cache ne prouve plus qu'elles n'existent pas */
+    private final Set<String> invalidated = ConcurrentHashMap.newKeySet();
+    /*
+     * Vues, synonymes... décrits comme des tables : ils existent, mais les helpers DDL ne doivent pas en déduire
+     * qu'une table de ce nom existe (isKnownToExist les laisse inconnus)
+     */
+    private final Set<String> nonTables = ConcurrentHashMap.newKeySet();
+    private volatile boolean prefetched;
+
+    public SchemaCache(DatabaseManager manager) {
+        this.manager = manager;
+    }
+
+    /*Indique si la table existe, en interrogeant le catalogue seulement si le cache ne le sait pas*/
+    public boolean tableExists(String tableName) throws SQLException {
+        Boolean known = isKnownToExist(tableName);
+        return known != null ? known : getTable(tableName) != null;
+    }
+
+    /*Retourne la description complète de la table, ou null si elle n'existe pas*/
+    public TableMetadata getTable(String tableName) throws SQLException {
+        String key = key(tableName);
+        Boolean known = isKnownToExist(tableName);
+        if (Boolean.FALSE.equals(known)) {
+            return null;
+        }
+        Optional<TableMetadata> cached = tables.get(key);
+        TableMetadata table = cached == null ? null : cached.orElse(null);
+        if (table == null || !table.isDescribed()) {
+            table = loadTable(tableName);
+        } else if (table.getPrimaryKey() == null) {
+            // Décrite par prefetch() : la clé primaire n'est lue qu'à la demande
+            try (Connection conn = manager.openConnection()) {
+                table = table.withPrimaryKey(readPrimaryKey(conn, table.getName()));
+            }
+            tables.put(key, Optional.of(table));
+        }
+        return table;
+    }
+
+    /*Colonnes de la clé primaire de la table (liste vide si elle n'en a pas), ou null si la table n'existe pas*/
+    public List<String> getPrimaryKey(String tableName) throws SQLException {
+        TableMetadata table = getTable(tableName);
+        return table == null ? null : table.getPrimaryKey();
+    }
+
+    /*
+     * Décrit toutes les tables du schéma courant en un seul appel au catalogue ; ensuite toute table absente
+     * du cache est considérée comme inexistante jusqu'à son invalidation
+     */
+    public void prefetch() throws SQLException {
+        Map<String, Optional<TableMetadata>> loaded = new HashMap<>();
+        Set<String> views = new HashSet<>();
+        try (Connection conn = manager.openConnection()) {
+            DatabaseMetaData metaData = conn.getMetaData();
+            Map<String, List<ColumnMetadata>> columns = new LinkedHashMap<>();
+            Map<String, String> names = new HashMap<>();
+            try (ResultSet rs = metaData.getColumns(conn.getCatalog(), conn.getSchema(), "%", "%")) {
+                readColumns(rs, null, columns, names);
+            }
+            // getColumns inclut les colonnes des vues et synonymes
+            Set<String> baseTables = new HashSet<>();
+            try (ResultSet rs = metaData.getTables(conn.getCatalog(), conn.getSchema(), "%", null)) {
+                while (rs.next()) {
+                    if (BASE_TABLE_TYPES.contains(rs.getString("TABLE_TYPE"))) {
+                        baseTables.add(key(rs.getString("TABLE_NAME")));
+                    }
+                }
+            }
+            for (Map.Entry<String, List<ColumnMetadata>> entry : columns.entrySet()) {
+                loaded.put(entry.getKey(), Optional.of(new TableMetadata(names.get(entry.getKey()), entry.getValue(), null)));
+            }
+            views.addAll(columns.keySet());
+            views.removeAll(baseTables);
+        }
+        tables.clear();
+        tables.putAll(loaded);
+        invalidated.clear();
+        nonTables.clear();
+        nonTables.addAll(views);
+        prefetched = true;
+    }
+
+    /*Oublie ce que le cache sait de la table*/
+    public void invalidate(String tableName) {
+        String key = key(tableName);
+        tables.remove(key);
+        nonTables.remove(key);
+        if (prefetched) {
+            invalidated.add(key);
+        }
+    }
+
+    /*Vide entièrement le cache*/
+    public void invalidateAll() {
+        prefetched = false;
+        tables.clear();
+        invalidated.clear();
+        nonTables.clear();
+    }
+
+    /*
+     * Retourne ce que le cache sait de l'existence de la table sans interroger le catalogue :
+     * TRUE ou FALSE si c'est connu, null sinon
+     */
+    Boolean isKnownToExist(String tableName) {
+        String key = key(tableName);
+        if (nonTables.contains(key)) {
+            return null;
+        }
+        Optional<TableMetadata> table = tables.get(key);
+        if (table != null) {
+            return table.isPresent();
+        }
+        if (prefetched && !invalidated.contains(key)) {
+            return Boolean.FALSE;
+        }
+        return null;
+    }
+
+    /*Enregistre qu'une table vient d'être créée ; ses colonnes seront lues à la première demande*/
+    void tableCreated(String tableName) {
+        String key = key(tableName);
+        tables.compute(key, (k, current) -> current != null && current.isPresent()
+                ? current : Optional.of(new TableMetadata(tableName, null, null)));
+        invalidated.remove(key);
+        nonTables.remove(key);
+    }
+
+    /*Enregistre qu'une table vient d'être supprimée*/
+    void tableDropped(String tableName) {
+        String key = key(tableName);
+        tables.put(key, Optional.empty());
+        invalidated.remove(key);
+        nonTables.remove(key);
+    }
+
+    /*
+     * Invalide les entrées touchées par un ordre exécuté via executeUpdate, s'il s'agit de DDL
+     * @return vrai si l'ordre a été reconnu comme du DDL
+     */
+    boolean invalidateForStatement(String query) {
+        // Test rapide sur le premier mot : la plupart des ordres sont des INSERT/UPDATE/DELETE
+        if (!startsWithDdlKeyword(query)) {
+            return false;
+        }
+        Matcher matcher = TABLE_DDL.matcher(query);
+        if (matcher.find()) {
+            invalidate(matcher.group(1).replaceAll("[\"\\[\\]]", ""));
+            return true;
+        }
+        if (OTHER_DDL.matcher(query).find()) {
+            invalidateAll();
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean startsWithDdlKeyword(String query) {
+        int start = 0;
+        while (start < query.length() && Character.isWhitespace(query.charAt(start))) {
+            start++;
+        }
+        for (String prefix : DDL_PREFIXES) {
+            if (query.regionMatches(true, start, prefix, 0, prefix.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private TableMetadata loadTable(String tableName) throws SQLException {
+        String key = key(tableName);
+        try (Connection conn = manager.openConnection()) {
+            DatabaseMetaData metaData = conn.getMetaData();
+            String pattern = escape(manager.getSQLDialect().toMetadataName(tableName), metaData.getSearchStringEscape());
+            Map<String, List<ColumnMetadata>> columns = new HashMap<>();
+            Map<String, String> names = new HashMap<>();
+            try (ResultSet rs = metaData.getColumns(conn.getCatalog(), conn.getSchema(), pattern, "%")) {
+                readColumns(rs, key, columns, names);
+            }
+            if (!columns.containsKey(key)) {
+                tables.put(key, Optional.empty());
+                invalidated.remove(key);
+                return null;
+            }
+            TableMetadata table = new TableMetadata(names.get(key), columns.get(key), readPrimaryKey(conn, names.get(key)));
+            if (isBaseTable(metaData, conn, pattern, key)) {
+                nonTables.remove(key);
+            } else {
+                nonTables.add(key);
+            }
+            tables.put(key, Optional.of(table));
+            invalidated.remove(key);
+            return table;
+        }
+    }
+
+    /*Lit les colonnes de getColumns() groupées par table (seulement la table onlyKey si elle est fournie)*/
+    private void readColumns(ResultSet rs, String onlyKey, Map<String, List<ColumnMetadata>> columns,
+                             Map<String, String> names) throws SQLException {
+        SQLDialect dialect = manager.getSQLDialect();
+        Map<String, SortedMap<Integer, ColumnMetadata>> ordered = new LinkedHashMap<>();
+        while (rs.next()) {
+            String tableName = rs.getString("TABLE_NAME");
+            String key = key(tableName);
+            // Le nom de table est un motif LIKE : écarter les tables qui y correspondent sans être celle demandée
+            if (onlyKey != null && !onlyKey.equals(key)) {
+                continue;
+            }
+            int size = rs.getInt("COLUMN_SIZE");
+            int scale = rs.getInt("DECIMAL_DIGITS");
+            String typeName = rs.getString("TYPE_NAME");
+            ColumnMetadata column = new ColumnMetadata(rs.getString("COLUMN_NAME"),
+                    dialect.toJdbcType(rs.getInt("DATA_TYPE"), typeName, size, scale), typeName, size, scale,
+                    rs.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls);
+            names.putIfAbsent(key, tableName);
+            ordered.computeIfAbsent(key, k -> new TreeMap<>()).put(rs.getInt("ORDINAL_POSITION"), column);
+        }
+        for (Map.Entry<String, SortedMap<Integer, ColumnMetadata>> entry : ordered.entrySet()) {
+            columns.put(entry.getKey(), new ArrayList<>(entry.getValue().values()));
+        }
+    }
+
+    private static boolean isBaseTable(DatabaseMetaData metaData, Connection conn, String pattern, String key)
+            throws SQLException {
+        try (ResultSet rs = metaData.getTables(conn.getCatalog(), conn.getSchema(), pattern, null)) {
+            while (rs.next()) {
+                if (key.equals(key(rs.getString("TABLE_NAME")))) {
+                    return BASE_TABLE_TYPES.contains(rs.getString("TABLE_TYPE"));
+                }
+            }
+        }
+        return false;
+    }
+
+    private static List<String> readPrimaryKey(Connection conn, String tableName) throws SQLException {
+        SortedMap<Integer, String> keyColumns = new TreeMap<>();
+        try (ResultSet rs = conn.getMetaData().getPrimaryKeys(conn.getCatalog(), conn.getSchema(), tableName)) {
+            while (rs.next()) {
+                keyColumns.put(rs.getInt("KEY_SEQ"), rs.getString("COLUMN_NAME"));
+            }
+        }
+        return new ArrayList<>(keyColumns.values());
+    }
+
+    private static String escape(String name, String escape) {
+        if (escape == null || escape.isEmpty()) {
+            return name;
+        }
+        return name.replace(escape, escape + escape).replace("_", escape + "_").replace("%", escape + "%");
+    }
+
+    private static String key(String tableName) {
+        return tableName.toLowerCase();
+    }
+}
@@ -0,0 +1,212 @@
+package ma.ensa.db;
+
+import java.lang.reflect.Array;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Requête SQL avec paramètres nommés (:nom), analysée une seule fois puis mise en cache par texte de requête.
+ * Un paramètre lié à une Collection ou un tableau est développé dans un IN (:liste) en autant de ? que la
+ * puissance de deux supérieure (1, 2, 4, 8...), la dernière valeur étant répétée pour compléter : le nombre de
+ * formes de requêtes distinctes reste faible et les caches de plans et de PreparedStatement restent efficaces.
+ * Le complément ne dépasse jamais les limites des SGBD pris en charge (1000 valeurs par IN pour Oracle,
+ * 2100 paramètres par requête pour SQL Server) : au-delà, la liste est développée à sa taille exacte.
+ * Une liste vide est refusée : IN () n'est pas du SQL valide et aucun remplacement ne convient à la fois à IN
+ * et à NOT IN.
+ *
+ * SqlTemplate.of("SELECT * FROM users WHERE age > :age AND id IN (:ids)")
+ */
+public final class SqlTemplate {
+
+    /* Au-delà, le cache est vidé : protège contre les requêtes construites par concaténation */
+    private static final int MAX_CACHED_TEMPLATES = 1000;
+    private static final Map<String, SqlTemplate> CACHE = new ConcurrentHashMap<>();
+    /* Nombre maximal de valeurs dans une liste IN (Oracle, ORA-01795) */
+    static final int MAX_IN_LIST_SIZE = 1000;
+    /* Nombre maximal de paramètres d'une requête (SQL Server) */
+    static final int MAX_PARAMETERS = 2100;
+
+    private final String template;
+    /* Morceaux de SQL entre les paramètres : fragments.size() == parameterNames.size() + 1 */
+    private final List<String> fragments;
+    /* Nom du paramètre à chaque emplacement, dans l'ordre d'apparition */
+    private final List<String> parameterNames;
+    /* SQL développé par combinaison de tailles de listes (la clé vide correspond à l'absence de liste) */
+    private final Map<String, String> expandedSql = new ConcurrentHashMap<>();
+
+    private SqlTemplate(String template) {
+        this.template = template;
+        this.fragments = new ArrayList<>();
+        this.parameterNames = new ArrayList<>();
+        parse();
+    }
+
+    /*Retourne la requête analysée correspondant à ce texte, en l'analysant au premier appel seulement*/
+    public static SqlTemplate of(String template) {
+        SqlTemplate cached = CACHE.get(template);
+        if (cached == null) {
+            if (CACHE.size() >= MAX_CACHED_TEMPLATES) {
+                CACHE.clear();
+            }
+            cached = CACHE.computeIfAbsent(template, SqlTemplate::new);
+        }
+        return cached;
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    /*Noms des paramètres dans l'ordre d'apparition (un nom utilisé deux fois apparaît deux fois)*/
+    public List<String> getParameterNames() {
+        return Collections.unmodifiableList(parameterNames);
+    }
+
+    /*
+     * Associe les valeurs aux paramètres nommés et produit le SQL positionnel (?) avec ses paramètres
+     * params valeurs par nom ; une Collection ou un tableau (hors byte[]) est développé pour un IN (...)
+     */
+    public Bound bind(Map<String, ?> params) {
+        List<Object> values = new ArrayList<>();
+        List<List<Object>> lists = new ArrayList<>(parameterNames.size());
+        int paddedCount = 0;
+        for (String name : parameterNames) {
+            if (!params.containsKey(name)) {
+                throw new IllegalArgumentException("Paramètre :" + name + " manquant pour la requête " + template);
+            }
+            List<Object> list = asList(params.get(name));
+            if (list != null && list.isEmpty()) {
+                throw new IllegalArgumentException("Liste vide pour le paramètre :" + name + " de la requête " + template);
+            }
+            lists.add(list);
+            paddedCount += list == null ? 1 : bucketSize(list.size());
+        }
+        // Sans complément si la requête complétée dépasserait la limite de paramètres
+        boolean pad = paddedCount <= MAX_PARAMETERS;
+
+        StringBuilder shape = new StringBuilder();
+        for (int p = 0; p < parameterNames.size(); p++) {
+            List<Object> list = lists.get(p);
+            if (list == null) {
+                values.add(params.get(parameterNames.get(p)));
+                shape.append("1,");
+                continue;
+            }
+            int bucket = pad ? bucketSize(list.size()) : list.size();
+            values.addAll(list);
+            Object last = list.get(list.size() - 1);
+            for (int i = list.size(); i < bucket; i++) {
+                values.add(last);
+            }
+            shape.append(bucket).append(',');
+        }
+        String sql = expandedSql.computeIfAbsent(shape.toString(), this::expand);
+        return new Bound(sql, values.toArray());
+    }
+
+    /*
+     * Taille de liste arrondie à la puissance de deux supérieure (au minimum 1), plafonnée à MAX_IN_LIST_SIZE ;
+     * une liste déjà plus longue garde sa taille
+     */
+    static int bucketSize(int size) {
+        if (size > MAX_IN_LIST_SIZE) {
+            return size;
+        }
+        int bucket = size <= 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+        return Math.min(bucket, MAX_IN_LIST_SIZE);
+    }
+
+    private String expand(String shape) {
+        String[] sizes = shape.isEmpty() ? new String[0] : shape.split(",");
+        StringBuilder sql = new StringBuilder(fragments.get(0));
+        for (int i = 0; i < parameterNames.size(); i++) {
+            int count = Integer.parseInt(sizes[i]);
+            for (int j = 0; j < count; j++) {
+                sql.append(j == 0 ? "?" : ", ?");
+            }
+            sql.append(fragments.get(i + 1));
+        }
+        return sql.toString();
+    }
+
+    private static List<Object> asList(Object value) {
+        if (value instanceof Collection) {
+            return new ArrayList<>((Collection<?>) value);
+        }
+        if (value != null && value.getClass().isArray() && !(value instanceof byte[])) {
+            List<Object> list = new ArrayList<>();
+            for (int i = 0; i < Array.getLength(value); i++) {
+                list.add(Array.get(value, i));
+            }
+            return list;
+        }
+        return null;
+    }
+
+    /*Découpe le texte en fragments et noms de paramètres, en ignorant les chaînes, identifiants entre guillemets,
+    commentaires et conversions PostgreSQL (::type)*/
+    private void parse() {
+        StringBuilder fragment = new StringBuilder();
+        int length = template.length();
+        int i = 0;
+        while (i < length) {
+            char c = template.charAt(i);
+            if (c == '\'' || c == '"') {
+                int end = template.indexOf(c, i + 1);
+                end = end < 0 ? length : end + 1;
+                fragment.append(template, i, end);
+                i = end;
+            } else if (c == '-' && template.startsWith("--", i)) {
+                int end = template.indexOf('\n', i);
+                end = end < 0 ? length : end;
+                fragment.append(template, i, end);
+                i = end;
+            } else if (c == '/' && template.startsWith("/*", i)) {
+                int end = template.indexOf("*/", i + 2);
+                end = end < 0 ? length : end + 2;
+                fragment.append(template, i, end);
+                i = end;
+            } else if (c == ':' && template.startsWith("::", i)) {
+                fragment.append("::");
+                i += 2;
+            } else if (c == ':' && i + 1 < length && Character.isJavaIdentifierStart(template.charAt(i + 1))) {
+                int end = i + 1;
+                while (end < length && Character.isJavaIdentifierPart(template.charAt(end))) {
+                    end++;
+                }
+                fragments.add(fragment.toString());
+                fragment.setLength(0);
+                parameterNames.add(template.substring(i + 1, end));
+                i = end;
+            } else {
+                fragment.append(c);
+                i++;
+            }
+        }
+        fragments.add(fragment.toString());
+    }
+
+    @Override
+    public String toString() {
+        return template;
+    }
+
+    /* Requête positionnelle prête à être exécutée : SQL avec ? et paramètres dans l'ordre */
+    public static final class Bound {
+        private final String sql;
+        private final Object[] parameters;
+
+        Bound(String sql, Object[] parameters) {
+            this.sql = sql;
+            this.parameters = parameters;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public Object[] getParameters() {
+            return parameters;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package ma.ensa.db;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+
+/*
+ * Affectation des paramètres d'une requête compilée une fois pour une signature (types Java des arguments) :
+ * chaque position appelle directement setInt, setLong, setString, setTimestamp... ou setNull avec le type SQL
+ * correspondant, au lieu de setObject qui laisse le driver inspecter le type à chaque appel (et provoque
+ * sur certains SGBD des conversions implicites qui empêchent l'utilisation des index).
+ * Les chaînes passent par SQLDialect.bindString : avec sendStringParametersAsUnicode=false dans l'URL, SQL Server
+ * reçoit du VARCHAR (sinon du NVARCHAR, qui force la conversion d'une colonne VARCHAR indexée et empêche la recherche
+ * dans l'index) tout en gardant le NVARCHAR pour les chaînes non ASCII.
+ * Un paramètre null ne change pas la signature : il est affecté par setNull avec le type déjà connu pour cette
+ * position, ou par setObject(null) tant qu'aucune valeur non nulle n'y a été vue.
+ */
+public final class StatementBinder {
+
+    private static final ParameterBinder GENERIC = (stmt, index, value) -> stmt.setObject(index, value);
+    private static final ParameterBinder LOB = (stmt, index, value) -> ((LobParameter) value).bind(stmt, index);
+
+    /* Dialecte du SGBD cible, pour les affectations qui en dépendent (null : JDBC standard) */
+    private final SQLDialect dialect;
+    /* Classe attendue à chaque position (null si seules des valeurs nulles y ont été vues) */
+    private final Class<?>[] types;
+    private final ParameterBinder[] binders;
+
+    private StatementBinder(SQLDialect dialect, Class<?>[] types, ParameterBinder[] binders) {
+        this.dialect = dialect;
+        this.types = types;
+        this.binders = binders;
+    }
+
+    /*Compile l'affectation pour les types des arguments fournis, avec les accesseurs JDBC standard*/
+    public static StatementBinder compile(Object... params) {
+        return compile(null, params);
+    }
+
+    /*Compile l'affectation pour les types des arguments fournis et le SGBD du dialecte*/
+    public static StatementBinder compile(SQLDialect dialect, Object[] params) {
+        Class<?>[] types = new Class<?>[params.length];
+        ParameterBinder[] binders = new ParameterBinder[params.length];
+        for (int i = 0; i < params.length; i++) {
+            types[i] = params[i] == null ? null : params[i].getClass();
+            binders[i] = forType(dialect, types[i]);
+        }
+        return new StatementBinder(dialect, types, binders);
+    }
+
+    /*Indique si ces arguments ont la signature compilée (les valeurs nulles sont toujours acceptées)*/
+    public boolean accepts(Object... params) {
+        if (params.length != types.length) {
+            return false;
+        }
+        for (int i = 0; i < params.length; i++) {
+            if (params[i] != null && params[i].getClass() != types[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Recompile pour des arguments refusés par accepts() en conservant, aux positions où ils sont nuls,
+     * le type déjà connu
+     */
+    public StatementBinder refine(Object... params) {
+        if (params.length != types.length) {
+            return compile(dialect, params);
+        }
+        Class<?>[] refinedTypes = Arrays.copyOf(types, types.length);
+        ParameterBinder[] refinedBinders = Arrays.copyOf(binders, binders.length);
+        for (int i = 0; i < params.length; i++) {
+            if (params[i] != null && params[i].getClass() != types[i]) {
+                refinedTypes[i] = params[i].getClass();
+                refinedBinders[i] = forType(dialect, refinedTypes[i]);
+            }
+        }
+        return new StatementBinder(dialect, refinedTypes, refinedBinders);
+    }
+
+    /*Affecte les paramètres ; les arguments doivent avoir été acceptés par accepts()*/
+    public void bind(PreparedStatement stmt, Object... params) throws SQLException {
+        for (int i = 0; i < binders.length; i++) {
+            binders[i].bind(stmt, i + 1, params[i]);
+        }
+    }
+
+    private static ParameterBinder forType(SQLDialect dialect, Class<?> type) {
+        if (type == null) {
+            return GENERIC;
+        }
+        if (type == Integer.class) {
+            return typed(Types.INTEGER, (stmt, index, value) -> stmt.setInt(index, (Integer) value));
+        }
+        if (type == Long.class) {
+            return typed(Types.BIGINT, (stmt, index, value) -> stmt.setLong(index, (Long) value));
+        }
+        if (type == String.class) {
+            if (dialect != null) {
+                return typed(Types.VARCHAR, (stmt, index, value) -> dialect.bindString(stmt, index, (String) value));
+            }
+            return typed(Types.VARCHAR, (stmt, index, value) -> stmt.setString(index, (String) value));
+        }
+        if (type == Timestamp.class) {
+            return typed(Types.TIMESTAMP, (stmt, index, value) -> stmt.setTimestamp(index, (Timestamp) value));
+        }
+        if (type == java.sql.Date.class) {
+            return typed(Types.DATE, (stmt, index, value) -> stmt.setDate(index, (java.sql.Date) value));
+        }
+        if (type == Time.class) {
+            return typed(Types.TIME, (stmt, index, value) -> stmt.setTime(index, (Time) value));
+        }
+        if (type == BigDecimal.class) {
+            return typed(Types.DECIMAL, (stmt, index, value) -> stmt.setBigDecimal(index, (BigDecimal) value));
+        }
+        if (type == Double.class) {
+            return typed(Types.DOUBLE, (stmt, index, value) -> stmt.setDouble(index, (Double) value));
+        }
+        if (type == Float.class) {
+            return typed(Types.REAL, (stmt, index, value) -> stmt.setFloat(index, (Float) value));
+        }
+        if (type == Short.class) {
+            return typed(Types.SMALLINT, (stmt, index, value) -> stmt.setShort(index, (Short) value));
+        }
+        if (type == Byte.class) {
+            return typed(Types.TINYINT, (stmt, index, value) -> stmt.setByte(index, (Byte) value));
+        }
+        if (type == Boolean.class) {
+            return typed(Types.BOOLEAN, (stmt, index, value) -> stmt.setBoolean(index, (Boolean) value));
+        }
+        if (type == byte[].class) {
+            return typed(Types.VARBINARY, (stmt, index, value) -> stmt.setBytes(index, (byte[]) value));
+        }
+        // Types java.time : setObject est la seule API standard (JDBC 4.2), seul le type SQL des null est fixé
+        if (type == LocalDate.class) {
+            return typed(Types.DATE, GENERIC);
+        }
+        if (type == LocalDateTime.class) {
+            return typed(Types.TIMESTAMP, GENERIC);
+        }
+        if (type == LocalTime.class) {
+            return typed(Types.TIME, GENERIC);
+        }
+        if (type == OffsetDateTime.class) {
+            return typed(Types.TIMESTAMP_WITH_TIMEZONE, GENERIC);
+        }
+        // LOB : le driver lit le flux pendant l'exécution, sans que la valeur entière soit chargée en mémoire
+        if (type == LobParameter.Binary.class) {
+            return typed(Types.LONGVARBINARY, LOB);
+        }
+        if (type == LobParameter.Text.class) {
+            return typed(Types.LONGVARCHAR, LOB);
+        }
+        if (InputStream.class.isAssignableFrom(type)) {
+            return typed(Types.LONGVARBINARY, (stmt, index, value) -> stmt.setBinaryStream(index, (InputStream) value));
+        }
+        if (Reader.class.isAssignableFrom(type)) {
+            return typed(Types.LONGVARCHAR, (stmt, index, value) -> stmt.setCharacterStream(index, (Reader) value));
+        }
+        if (Blob.class.isAssignableFrom(type)) {
+            return typed(Types.BLOB, (stmt, index, value) -> stmt.setBlob(index, (Blob) value));
+        }
+        if (Clob.class.isAssignableFrom(type)) {
+            return typed(Types.CLOB, (stmt, index, value) -> stmt.setClob(index, (Clob) value));
+        }
+        return GENERIC;
+    }
+
+    private static ParameterBinder typed(int sqlType, ParameterBinder binder) {
+        return (stmt, index, value) -> {
+            if (value == null) {
+                stmt.setNull(index, sqlType);
+            } else {
+                binder.bind(stmt, index, value);
+            }
+        };
+    }
+}
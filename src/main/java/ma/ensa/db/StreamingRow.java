@@ -0,0 +1,65 @@
+package ma.ensa.db;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * Ligne courante d'un curseur en flux. Les colonnes LOB se lisent par getBinaryStream/getCharacterStream :
+ * le flux est ouvert par le dialecte sur la ligne courante et reste valable jusqu'au retour du RowHandler,
+ * la mémoire utilisée ne dépend donc pas de la taille du LOB (sauf sur les SGBD qui transmettent la ligne
+ * entière, voir SQLDialect.openBinaryStream). Un même objet est réutilisé pour toutes les lignes du curseur :
+ * il ne doit pas être conservé après le traitement de la ligne.
+ */
+public final class StreamingRow {
+
+    private final ResultSet resultSet;
+    private final SQLDialect dialect;
+    /* Libellés en minuscules, comme executeQuery */
+    private final Map<String, Integer> indexes = new HashMap<>();
+    private final int[] types;
+
+    StreamingRow(ResultSet resultSet, SQLDialect dialect) throws SQLException {
+        this.resultSet = resultSet;
+        this.dialect = dialect;
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        this.types = new int[metaData.getColumnCount()];
+        for (int i = 1; i <= types.length; i++) {
+            indexes.putIfAbsent(metaData.getColumnLabel(i).toLowerCase(), i);
+            types[i - 1] = metaData.getColumnType(i);
+        }
+    }
+
+    /*Valeur d'une colonne au format de executeQuery (un BLOB/CLOB est alors lu entièrement)*/
+    public Object get(String column) throws SQLException {
+        int index = indexOf(column);
+        return dialect.readValue(resultSet, index, types[index - 1]);
+    }
+
+    /*Flux sur une colonne binaire, null si la valeur est NULL*/
+    public InputStream getBinaryStream(String column) throws SQLException {
+        return dialect.openBinaryStream(resultSet, indexOf(column));
+    }
+
+    /*Flux sur une colonne texte, null si la valeur est NULL*/
+    public Reader getCharacterStream(String column) throws SQLException {
+        return dialect.openCharacterStream(resultSet, indexOf(column));
+    }
+
+    /*ResultSet sous-jacent, positionné sur la ligne courante*/
+    public ResultSet getResultSet() {
+        return resultSet;
+    }
+
+    private int indexOf(String column) throws SQLException {
+        Integer index = indexes.get(column.toLowerCase());
+        if (index == null) {
+            throw new SQLException("Colonne inconnue: " + column);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,282 @@
+package ma.ensa.db;
+
+import lombok.Setter;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/*
+ * Copie une table d'un gestionnaire source vers un gestionnaire cible, éventuellement d'un autre SGBD.
+ * La table source est découpée en plages de clé primaire (numérique) lues en parallèle via des curseurs en flux ;
+ * les types de colonnes passent par les deux dialectes et les lignes sont insérées par lots sur la cible.
+ * Chaque lot est validé dans la même transaction que la position atteinte dans la table de reprise :
+ * une copie interrompue reprend là où elle s'était arrêtée en rappelant copy() avec les mêmes tables.
+ */
+public class TableCopier {
+
+    public static final String DEFAULT_CHECKPOINT_TABLE = "copy_checkpoint";
+
+    private final DatabaseManager source;
+    private final DatabaseManager target;
+
+    /*Nombre de plages lues simultanément (une connexion source et une connexion cible par plage)*/
+    @Setter
+    private int parallelism = 4;
+    /*Nombre de plages de clés créées pour une nouvelle copie*/
+    @Setter
+    private int partitions = 16;
+    /*Nombre de lignes insérées et validées par lot*/
+    @Setter
+    private int batchSize = 1000;
+    /*Table de la base cible où sont enregistrées les positions de reprise*/
+    @Setter
+    private String checkpointTable = DEFAULT_CHECKPOINT_TABLE;
+    /*Notifié après chaque lot validé (appelé depuis les threads de copie)*/
+    @Setter
+    private Consumer<CopyProgress> progressListener;
+
+    public TableCopier(DatabaseManager source, DatabaseManager target) {
+        this.source = source;
+        this.target = target;
+    }
+
+    /*
+     * Copie sourceTable vers targetTable (créée à partir des métadonnées source si elle n'existe pas)
+     * keyColumn colonne de clé primaire numérique servant au découpage en plages
+     * @return l'avancement final de l'exécution courante
+     */
+    public CopyProgress copy(String sourceTable, String targetTable, String keyColumn) throws SQLException {
+        String jobId = sourceTable + "->" + targetTable;
+        TableTransfer.SourceTable table = TableTransfer.describe(source, target, sourceTable);
+        int keyIndex = table.indexOf(keyColumn);
+
+        target.createTableIfNotExists(targetTable, table.columnDefinitions + ", PRIMARY KEY (" + keyColumn + ")");
+        createCheckpointTable();
+
+        List<KeyRange> ranges = new ArrayList<>();
+        List<Map<String, Object>> saved = target.executeQuery(
+                "SELECT range_id, last_key, upper_key, done FROM " + checkpointTable + " WHERE job_id = ?", jobId);
+        boolean resumed = !saved.isEmpty();
+        int rangesTotal = resumed ? loadRanges(saved, ranges) : planRanges(jobId, sourceTable, keyColumn, ranges);
+
+        String columnList = table.columnList();
+        String selectSql = "SELECT " + columnList + " FROM " + sourceTable
+                + " WHERE " + keyColumn + " > ? AND " + keyColumn + " <= ? ORDER BY " + keyColumn;
+        String insertSql = "INSERT INTO " + targetTable + " (" + columnList + ") VALUES ("
+                + SQLDialect.placeholders(table.columns.size()) + ")";
+
+        CopyRun run = new CopyRun(jobId, selectSql, insertSql, keyIndex, table.types, rangesTotal - ranges.size(), rangesTotal,
+                resumed);
+        if (resumed && progressListener != null) {
+            // Signaler la reprise et les plages déjà terminées avant toute lecture
+            progressListener.accept(run.snapshot());
+        }
+        if (!ranges.isEmpty()) {
+            runRanges(run, ranges, sourceTable);
+        }
+
+        // Copie terminée : les positions de reprise ne servent plus
+        target.executeUpdate("DELETE FROM " + checkpointTable + " WHERE job_id = ?", jobId);
+        return run.snapshot();
+    }
+
+    private void createCheckpointTable() throws SQLException {
+        Map<String, Integer> columns = new LinkedHashMap<>();
+        columns.put("range_id", Types.INTEGER);
+        columns.put("last_key", Types.BIGINT);
+        columns.put("upper_key", Types.BIGINT);
+        columns.put("done", Types.INTEGER);
+        TableTransfer.createStateTable(target, checkpointTable, columns, "range_id");
+    }
+
+    /*
+     * Reprend les plages non terminées d'une exécution précédente
+     * @return le nombre total de plages de la copie
+     */
+    private int loadRanges(List<Map<String, Object>> saved, List<KeyRange> ranges) {
+        for (Map<String, Object> row : saved) {
+            if (((Number) row.get("done")).intValue() == 0) {
+                ranges.add(new KeyRange(((Number) row.get("range_id")).intValue(),
+                        ((Number) row.get("last_key")).longValue(), ((Number) row.get("upper_key")).longValue()));
+            }
+        }
+        return saved.size();
+    }
+
+    /*
+     * Découpe la table source en plages et enregistre le plan
+     * @return le nombre total de plages de la copie
+     */
+    private int planRanges(String jobId, String sourceTable, String keyColumn, List<KeyRange> ranges)
+            throws SQLException {
+        Map<String, Object> bounds = source.executeQuery(
+                "SELECT MIN(" + keyColumn + ") AS min_key, MAX(" + keyColumn + ") AS max_key FROM " + sourceTable).get(0);
+        if (bounds.get("min_key") == null) {
+            return 0;
+        }
+        if (!(bounds.get("min_key") instanceof Number)) {
+            throw new SQLException("La clé de découpage " + keyColumn + " doit être numérique");
+        }
+        long min = ((Number) bounds.get("min_key")).longValue();
+        long max = ((Number) bounds.get("max_key")).longValue();
+        long span = max - min + 1;
+        long count = Math.max(1, Math.min(partitions, span));
+        long step = (span + count - 1) / count;
+        for (long lower = min; lower <= max; lower += step) {
+            // Les bornes basses sont exclusives : la plage commence juste avant sa première clé
+            ranges.add(new KeyRange(ranges.size(), lower - 1, Math.min(lower + step - 1, max)));
+        }
+
+        // Enregistrer tout le plan dans une seule transaction pour ne jamais reprendre un plan partiel
+        try (Connection conn = target.openConnection();
+             PreparedStatement stmt = conn.prepareStatement("INSERT INTO " + checkpointTable
+                     + " (job_id, range_id, last_key, upper_key, done) VALUES (?, ?, ?, ?, 0)")) {
+            conn.setAutoCommit(false);
+            for (KeyRange range : ranges) {
+                stmt.setString(1, jobId);
+                stmt.setInt(2, range.id);
+                stmt.setLong(3, range.lastKey);
+                stmt.setLong(4, range.upperKey);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            conn.commit();
+        }
+        return ranges.size();
+    }
+
+    private void runRanges(CopyRun run, List<KeyRange> ranges, String sourceTable) throws SQLException {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, ranges.size())));
+        try {
+            CompletionService<Void> completion = new ExecutorCompletionService<>(pool);
+            for (KeyRange range : ranges) {
+                completion.submit(() -> {
+                    copyRange(run, range);
+                    return null;
+                });
+            }
+            for (int i = 0; i < ranges.size(); i++) {
+                completion.take().get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Copie de " + sourceTable + " interrompue", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            throw new SQLException("Échec de la copie de " + sourceTable + ": " + cause.getMessage(), cause);
+        } finally {
+            // Arrêter les autres plages dès la première erreur
+            pool.shutdownNow();
+        }
+    }
+
+    /*Copie une plage : lecture en flux côté source, insertion par lots et validation avec sa position côté cible*/
+    private void copyRange(CopyRun run, KeyRange range) throws SQLException {
+        int[] types = run.types;
+        try (Connection sourceConn = source.openConnection();
+             PreparedStatement select = sourceConn.prepareStatement(run.selectSql);
+             Connection targetConn = target.openConnection();
+             PreparedStatement insert = targetConn.prepareStatement(run.insertSql);
+             PreparedStatement checkpoint = targetConn.prepareStatement("UPDATE " + checkpointTable
+                     + " SET last_key = ?, done = ? WHERE job_id = ? AND range_id = ?")) {
+            SQLDialect sourceDialect = source.getSQLDialect();
+            SQLDialect targetDialect = target.getSQLDialect();
+            sourceDialect.enableStreaming(sourceConn, select, batchSize);
+            targetConn.setAutoCommit(false);
+            select.setLong(1, range.lastKey);
+            select.setLong(2, range.upperKey);
+
+            int pending = 0;
+            try (ResultSet rs = select.executeQuery()) {
+                while (rs.next()) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new SQLException("Copie de la plage " + range.id + " interrompue");
+                    }
+                    Object[] values = TableTransfer.transferRow(rs, sourceDialect, targetDialect, types, insert);
+                    range.lastKey = ((Number) values[run.keyIndex - 1]).longValue();
+                    if (++pending == batchSize) {
+                        commitBatch(run, range, targetConn, insert, checkpoint, pending, false);
+                        pending = 0;
+                    }
+                }
+                commitBatch(run, range, targetConn, insert, checkpoint, pending, true);
+            } catch (SQLException e) {
+                targetConn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    private void commitBatch(CopyRun run, KeyRange range, Connection conn, PreparedStatement insert,
+                             PreparedStatement checkpoint, int pending, boolean done) throws SQLException {
+        TableTransfer.commitBatch(target, conn, insert, run.insertSql, pending, () -> {
+            checkpoint.setLong(1, range.lastKey);
+            checkpoint.setInt(2, done ? 1 : 0);
+            checkpoint.setString(3, run.jobId);
+            checkpoint.setInt(4, range.id);
+            checkpoint.executeUpdate();
+        });
+
+        run.rowsCopied.addAndGet(pending);
+        if (done) {
+            run.rangesDone.incrementAndGet();
+        }
+        if (progressListener != null) {
+            progressListener.accept(run.snapshot());
+        }
+    }
+
+    /*Plage de clés ]lastKey, upperKey] restant à copier*/
+    private static class KeyRange {
+        final int id;
+        volatile long lastKey;
+        final long upperKey;
+
+        KeyRange(int id, long lastKey, long upperKey) {
+            this.id = id;
+            this.lastKey = lastKey;
+            this.upperKey = upperKey;
+        }
+    }
+
+    /*État partagé par les threads d'une exécution de copy()*/
+    private static class CopyRun {
+        final String jobId;
+        final String selectSql;
+        final String insertSql;
+        final int keyIndex;
+        final int[] types;
+        final int rangesTotal;
+        final AtomicLong rowsCopied = new AtomicLong();
+        final AtomicInteger rangesDone;
+        final boolean resumed;
+        final long startNanos = System.nanoTime();
+
+        CopyRun(String jobId, String selectSql, String insertSql, int keyIndex, int[] types,
+                int rangesDone, int rangesTotal, boolean resumed) {
+            this.jobId = jobId;
+            this.selectSql = selectSql;
+            this.insertSql = insertSql;
+            this.keyIndex = keyIndex;
+            this.types = types;
+            this.rangesDone = new AtomicInteger(rangesDone);
+            this.rangesTotal = rangesTotal;
+            this.resumed = resumed;
+        }
+
+        CopyProgress snapshot() {
+            return new CopyProgress(rowsCopied.get(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos),
+                    rangesDone.get(), rangesTotal, resumed);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package ma.ensa.db;
+
+import java.util.Collections;
+import java.util.List;
+
+/* Description d'une table : colonnes dans l'ordre de déclaration et clé primaire (voir SchemaCache) */
+public class TableMetadata {
+    private final String name;
+    private final List<ColumnMetadata> columns;
+    private final List<String> primaryKey;
+
+    public TableMetadata(String name, List<ColumnMetadata> columns, List<String> primaryKey) {
+        this.name = name;
+        this.columns = columns == null ? null : Collections.unmodifiableList(columns);
+        this.primaryKey = primaryKey == null ? null : Collections.unmodifiableList(primaryKey);
+    }
+
+    /*Nom tel qu'enregistré dans le catalogue*/
+    public String getName() {
+        return name;
+    }
+
+    public List<ColumnMetadata> getColumns() {
+        return columns;
+    }
+
+    /*Retourne la colonne de ce nom (sans tenir compte de la casse), ou null si elle n'existe pas*/
+    public ColumnMetadata getColumn(String columnName) {
+        for (ColumnMetadata column : columns) {
+            if (column.getName().equalsIgnoreCase(columnName)) {
+                return column;
+            }
+        }
+        return null;
+    }
+
+    /*Colonnes de la clé primaire dans l'ordre de la clé (liste vide si la table n'en a pas)*/
+    public List<String> getPrimaryKey() {
+        return primaryKey;
+    }
+
+    /*Vrai si les colonnes ont été lues (une table créée via le cache est connue avant d'être décrite)*/
+    boolean isDescribed() {
+        return columns != null;
+    }
+
+    TableMetadata withPrimaryKey(List<String> primaryKey) {
+        return new TableMetadata(name, columns, primaryKey);
+    }
+}
@@ -0,0 +1,208 @@
+package ma.ensa.db;
+
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Synchronisation incrémentale d'une table d'un gestionnaire source vers un gestionnaire cible.
+ * Une colonne croissante (updated_at, identifiant séquentiel...) sert de « watermark » : seules les lignes situées
+ * après la dernière position enregistrée sont lues, par un curseur en flux, puis appliquées par lots d'upserts
+ * générés par le dialecte cible. La position (watermark, clé) est enregistrée dans une table d'état de la base cible
+ * dans la même transaction que chaque lot : une synchronisation interrompue reprend au dernier lot validé.
+ * Le travail est proportionnel au nombre de lignes modifiées si la colonne de watermark est indexée sur la source.
+ * Les suppressions ne sont pas propagées, et une ligne validée avec un watermark déjà dépassé (transaction longue
+ * sur la source) n'est reprise qu'à sa prochaine modification.
+ */
+public class TableSynchronizer {
+
+    public static final String DEFAULT_STATE_TABLE = "sync_watermark";
+
+    private final DatabaseManager source;
+    private final DatabaseManager target;
+
+    /*Nombre de lignes appliquées et validées par lot*/
+    @Setter
+    private int batchSize = 1000;
+    /*Table de la base cible où sont enregistrées les positions de synchronisation*/
+    @Setter
+    private String stateTable = DEFAULT_STATE_TABLE;
+
+    public TableSynchronizer(DatabaseManager source, DatabaseManager target) {
+        this.source = source;
+        this.target = target;
+    }
+
+    /*
+     * Applique à targetTable (créée à partir des métadonnées source si elle n'existe pas) les lignes de sourceTable
+     * modifiées depuis la synchronisation précédente
+     * keyColumn clé primaire, utilisée pour les upserts et pour départager les lignes de même watermark
+     * watermarkColumn colonne croissante à chaque modification (peut être la clé elle-même)
+     * @return le nombre de lignes appliquées
+     */
+    public long sync(String sourceTable, String targetTable, String keyColumn, String watermarkColumn)
+            throws SQLException {
+        String jobId = sourceTable + "->" + targetTable;
+        TableTransfer.SourceTable table = TableTransfer.describe(source, target, sourceTable);
+        int[] types = table.types;
+        int keyIndex = table.indexOf(keyColumn);
+        int watermarkIndex = table.indexOf(watermarkColumn);
+
+        target.createTableIfNotExists(targetTable, table.columnDefinitions + ", PRIMARY KEY (" + keyColumn + ")");
+        Map<String, Integer> stateColumns = new LinkedHashMap<>();
+        stateColumns.put("last_watermark", Types.VARCHAR);
+        stateColumns.put("last_key", Types.VARCHAR);
+        TableTransfer.createStateTable(target, stateTable, stateColumns);
+
+        // Position atteinte par la synchronisation précédente, convertie dans le type des colonnes source
+        Object lastWatermark = null;
+        Object lastKey = null;
+        List<Map<String, Object>> saved = target.executeQuery(
+                "SELECT last_watermark, last_key FROM " + stateTable + " WHERE job_id = ?", jobId);
+        if (!saved.isEmpty() && saved.get(0).get("last_watermark") != null) {
+            lastWatermark = parsePosition((String) saved.get(0).get("last_watermark"), types[watermarkIndex - 1]);
+            lastKey = parsePosition((String) saved.get(0).get("last_key"), types[keyIndex - 1]);
+        }
+
+        SQLDialect targetDialect = target.getSQLDialect();
+        SyncRun run = new SyncRun(jobId, keyIndex, watermarkIndex, types,
+                targetDialect.upsert(targetTable, table.columns, List.of(keyColumn.toLowerCase())),
+                targetDialect.upsert(stateTable, List.of("job_id", "last_watermark", "last_key"), List.of("job_id")));
+        String selectSql = selectChanges(sourceTable, table.columns, keyColumn, watermarkColumn, lastWatermark != null);
+        Object[] selectParams = lastWatermark == null ? new Object[0]
+                : keyIndex == watermarkIndex ? new Object[] {lastWatermark}
+                : new Object[] {lastWatermark, lastWatermark, lastKey};
+        return apply(run, selectSql, selectParams);
+    }
+
+    /*
+     * Lignes postérieures à la position (watermark, clé), dans cet ordre. La condition « watermark >= ? » seule
+     * délimite la plage parcourue dans l'index ; le reste écarte les lignes déjà appliquées de même watermark
+     */
+    private static String selectChanges(String sourceTable, List<String> columns, String keyColumn,
+                                        String watermarkColumn, boolean incremental) {
+        boolean keyIsWatermark = keyColumn.equalsIgnoreCase(watermarkColumn);
+        String where;
+        if (!incremental) {
+            // Première synchronisation : une ligne sans watermark ne pourrait jamais servir de position
+            where = watermarkColumn + " IS NOT NULL";
+        } else if (keyIsWatermark) {
+            where = watermarkColumn + " > ?";
+        } else {
+            where = watermarkColumn + " >= ? AND (" + watermarkColumn + " > ? OR " + keyColumn + " > ?)";
+        }
+        return "SELECT " + String.join(", ", columns) + " FROM " + sourceTable + " WHERE " + where
+                + " ORDER BY " + watermarkColumn + (keyIsWatermark ? "" : ", " + keyColumn);
+    }
+
+    /*Lecture en flux côté source, upserts par lots et validation avec la position atteinte côté cible*/
+    private long apply(SyncRun run, String selectSql, Object[] selectParams) throws SQLException {
+        int[] types = run.types;
+        SQLDialect sourceDialect = source.getSQLDialect();
+        SQLDialect targetDialect = target.getSQLDialect();
+        long applied = 0;
+        try (Connection sourceConn = source.openConnection();
+             PreparedStatement select = sourceConn.prepareStatement(selectSql);
+             Connection targetConn = target.openConnection();
+             PreparedStatement upsert = targetConn.prepareStatement(run.upsertSql);
+             PreparedStatement state = targetConn.prepareStatement(run.stateSql)) {
+            sourceDialect.enableStreaming(sourceConn, select, batchSize);
+            targetConn.setAutoCommit(false);
+            StatementBinder.compile(sourceDialect, selectParams).bind(select, selectParams);
+
+            Object watermark = null;
+            Object key = null;
+            int pending = 0;
+            try (ResultSet rs = select.executeQuery()) {
+                while (rs.next()) {
+                    Object[] values = TableTransfer.transferRow(rs, sourceDialect, targetDialect, types, upsert);
+                    watermark = values[run.watermarkIndex - 1];
+                    key = values[run.keyIndex - 1];
+                    if (++pending == batchSize) {
+                        commitBatch(run, targetConn, upsert, state, pending, watermark, key);
+                        applied += pending;
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    commitBatch(run, targetConn, upsert, state, pending, watermark, key);
+                    applied += pending;
+                }
+            } catch (SQLException e) {
+                targetConn.rollback();
+                throw e;
+            }
+        }
+        return applied;
+    }
+
+    private void commitBatch(SyncRun run, Connection conn, PreparedStatement upsert, PreparedStatement state,
+                             int pending, Object watermark, Object key) throws SQLException {
+        TableTransfer.commitBatch(target, conn, upsert, run.upsertSql, pending, () -> {
+            state.setString(1, run.jobId);
+            state.setString(2, formatPosition(watermark));
+            state.setString(3, formatPosition(key));
+            state.executeUpdate();
+        });
+    }
+
+    /*Les positions sont stockées en texte pour accepter tout type de watermark (horodatage, entier, décimal...)*/
+    private static String formatPosition(Object value) {
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).toPlainString();
+        }
+        return value == null ? null : value.toString();
+    }
+
+    private static Object parsePosition(String value, int jdbcType) throws SQLException {
+        if (value == null) {
+            return null;
+        }
+        try {
+            switch (jdbcType) {
+                case Types.TINYINT:
+                case Types.SMALLINT:
+                case Types.INTEGER:
+                case Types.BIGINT:
+                    return Long.valueOf(value);
+                case Types.NUMERIC:
+                case Types.DECIMAL:
+                    return new BigDecimal(value);
+                case Types.DATE:
+                    return Date.valueOf(value);
+                case Types.TIME:
+                    return Time.valueOf(value);
+                case Types.TIMESTAMP:
+                case Types.TIMESTAMP_WITH_TIMEZONE:
+                    return Timestamp.valueOf(value);
+                default:
+                    return value;
+            }
+        } catch (IllegalArgumentException e) {
+            throw new SQLException("Position de synchronisation illisible: " + value, e);
+        }
+    }
+
+    /*Requêtes et indices de colonnes d'une synchronisation*/
+    private static final class SyncRun {
+        final String jobId;
+        final int keyIndex;
+        final int watermarkIndex;
+        final int[] types;
+        final String upsertSql;
+        final String stateSql;
+
+        SyncRun(String jobId, int keyIndex, int watermarkIndex, int[] types, String upsertSql, String stateSql) {
+            this.jobId = jobId;
+            this.keyIndex = keyIndex;
+            this.watermarkIndex = watermarkIndex;
+            this.types = types;
+            this.upsertSql = upsertSql;
+            this.stateSql = stateSql;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package ma.ensa.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Éléments communs aux transferts de lignes d'une base vers une autre (TableCopier, TableSynchronizer) :
+ * description de la table source pour la cible, table d'état des tâches, lecture d'une ligne source vers un ordre
+ * d'écriture cible et validation d'un lot avec la position atteinte.
+ */
+final class TableTransfer {
+
+    private TableTransfer() {
+    }
+
+    /*Enregistre la position atteinte, dans la transaction du lot (voir commitBatch)*/
+    @FunctionalInterface
+    interface PositionUpdate {
+        void save() throws SQLException;
+    }
+
+    /* Colonnes de la table source (en minuscules), types normalisés par le dialecte source et définitions pour la cible */
+    static final class SourceTable {
+        final String name;
+        final List<String> columns;
+        final int[] types;
+        final String columnDefinitions;
+
+        private SourceTable(String name, List<String> columns, int[] types, String columnDefinitions) {
+            this.name = name;
+            this.columns = columns;
+            this.types = types;
+            this.columnDefinitions = columnDefinitions;
+        }
+
+        /*Position (à partir de 1) de la colonne dans les lignes lues*/
+        int indexOf(String column) throws SQLException {
+            for (int i = 0; i < columns.size(); i++) {
+                if (columns.get(i).equalsIgnoreCase(column)) {
+                    return i + 1;
+                }
+            }
+            throw new SQLException("Colonne " + column + " absente de la table " + name);
+        }
+
+        String columnList() {
+            return String.join(", ", columns);
+        }
+    }
+
+    /*Lit les métadonnées de la table source (via son cache de schéma) et construit les définitions de colonnes pour la cible*/
+    static SourceTable describe(DatabaseManager source, DatabaseManager target, String sourceTable) throws SQLException {
+        TableMetadata table = source.getSchemaCache().getTable(sourceTable);
+        if (table == null) {
+            throw new SQLException("Table source introuvable: " + sourceTable);
+        }
+        SQLDialect targetDialect = target.getSQLDialect();
+        List<String> columns = new ArrayList<>();
+        List<String> definitions = new ArrayList<>();
+        int[] types = new int[table.getColumns().size()];
+        for (ColumnMetadata column : table.getColumns()) {
+            // Le type est déjà normalisé par le dialecte source
+            String name = column.getName().toLowerCase();
+            types[columns.size()] = column.getJdbcType();
+            columns.add(name);
+            definitions.add(name + " " + targetDialect.columnType(column.getJdbcType(), column.getSize(), column.getScale()));
+        }
+        return new SourceTable(sourceTable, columns, types, String.join(", ", definitions));
+    }
+
+    /*
+     * Crée si besoin une table d'état sur la cible : job_id suivi des colonnes fournies (dans l'ordre de la Map,
+     * texte limité à 100 caractères) ; la clé primaire est job_id puis keyColumns
+     */
+    static void createStateTable(DatabaseManager target, String tableName, Map<String, Integer> columns,
+                                 String... keyColumns) throws SQLException {
+        SQLDialect dialect = target.getSQLDialect();
+        StringBuilder definitions = new StringBuilder("job_id " + dialect.columnType(Types.VARCHAR, 200, 0) + " NOT NULL");
+        for (Map.Entry<String, Integer> column : columns.entrySet()) {
+            int size = column.getValue() == Types.VARCHAR ? 100 : 0;
+            definitions.append(", ").append(column.getKey()).append(' ')
+                    .append(dialect.columnType(column.getValue(), size, 0));
+            if (SQLDialect.containsIgnoreCase(List.of(keyColumns), column.getKey())) {
+                definitions.append(" NOT NULL");
+            }
+        }
+        definitions.append(", PRIMARY KEY (job_id");
+        for (String key : keyColumns) {
+            definitions.append(", ").append(key);
+        }
+        target.createTableIfNotExists(tableName, definitions.append(')').toString());
+    }
+
+    /*
+     * Lit la ligne courante via le dialecte source, l'affecte à l'ordre d'écriture cible et l'ajoute au lot
+     * (les chaînes et les valeurs nulles sont affectées selon le dialecte cible)
+     * @return les valeurs lues
+     */
+    static Object[] transferRow(ResultSet rs, SQLDialect sourceDialect, SQLDialect targetDialect, int[] types,
+                                PreparedStatement write) throws SQLException {
+        Object[] values = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            Object value = sourceDialect.readTransferValue(rs, i + 1, types[i]);
+            if (value == null) {
+                write.setNull(i + 1, targetDialect.nullType(types[i]));
+            } else if (value instanceof String) {
+                targetDialect.bindString(write, i + 1, (String) value);
+            } else {
+                write.setObject(i + 1, value);
+            }
+            values[i] = value;
+        }
+        write.addBatch();
+        return values;
+    }
+
+    /*Exécute le lot (événements BATCH de la cible), enregistre la position atteinte et valide les deux ensemble*/
+    static void commitBatch(DatabaseManager target, Connection conn, PreparedStatement batch, String sql, int pending,
+                            PositionUpdate position) throws SQLException {
+        if (pending > 0) {
+            ExecutionEventDispatcher events = target.getExecutionEvents();
+            long start = events.before(ExecutionEvent.Type.BATCH, sql);
+            try {
+                batch.executeBatch();
+            } catch (SQLException e) {
+                events.after(ExecutionEvent.Type.BATCH, sql, start, -1, e);
+                throw e;
+            }
+            events.after(ExecutionEvent.Type.BATCH, sql, start, pending, null);
+        }
+        position.save();
+        conn.commit();
+    }
+}
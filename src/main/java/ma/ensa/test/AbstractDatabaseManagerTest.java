@@ -1,6 +1,15 @@
 package ma.ensa.test;
 
+import ma.ensa.db.CopyProgress;
 import ma.ensa.db.DatabaseManager;
+import ma.ensa.db.ExecutionEvent;
+import ma.ensa.db.ExecutionListener;
+import ma.ensa.db.GroupCommitWriter;
+import ma.ensa.db.LobParameter;
+import ma.ensa.db.SchemaCache;
+import ma.ensa.db.SqlTemplate;
+import ma.ensa.db.TableCopier;
+import ma.ensa.db.TableSynchronizer;
 import ma.ensa.util.CSVDataLoader;
 
 import org.junit.jupiter.api.AfterEach;
@@ -8,10 +17,23 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
 import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
 
 /*Classe de test abstraite pour les gestionnaires de base de données. Les classes de test spécifiques pour chaque SGBD étendront
 cette classe*/
@@ -20,6 +42,8 @@ public abstract class AbstractDatabaseManagerTest {
     protected DatabaseManager dbManager;
     protected CSVDataLoader dataLoader;
     protected static final String TEST_TABLE = "test_users";
+    protected static final String COPY_TABLE = "test_users_copy";
+    protected static final String LOB_TABLE = "test_documents";
 
     /**
      * Méthode à implémenter par les sous-classes pour fournir le bon gestionnaire de DB*/
@@ -160,4 +184,218 @@ public abstract class AbstractDatabaseManagerTest {
         List<Map<String, Object>> results = dbManager.executeQuery("SELECT * FROM " + TEST_TABLE + " WHERE id = ?", id);
         assertTrue(results.isEmpty());
     }
+
+    @Test
+    public void testExecutionEvents() throws SQLException {
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        ExecutionListener listener = event -> {
+            // Les connexions ouvertes au passage ne font pas partie de la séquence vérifiée
+            if (event.getType() != ExecutionEvent.Type.CONNECT && event.getType() != ExecutionEvent.Type.DISCONNECT) {
+                received.add(event.getType() + " " + event.getPhase());
+            }
+        };
+        dbManager.addExecutionListener(listener);
+        try {
+            dbManager.beginTransaction();
+            dbManager.executeUpdate("UPDATE " + TEST_TABLE + " SET age = age WHERE id = ?", 1);
+            dbManager.commitTransaction();
+            assertTrue(dbManager.getExecutionEvents().awaitDelivery(5000));
+        } finally {
+            dbManager.removeExecutionListener(listener);
+        }
+
+        // Les événements sont remis dans l'ordre de publication
+        assertEquals(List.of("BEGIN BEFORE", "BEGIN AFTER", "STATEMENT BEFORE", "STATEMENT AFTER",
+                "COMMIT BEFORE", "COMMIT AFTER"), received);
+    }
+
+    @Test
+    public void testSqlTemplate() throws SQLException {
+        SqlTemplate template = SqlTemplate.of("SELECT * FROM " + TEST_TABLE + " WHERE id IN (:ids) AND age > :age");
+        // La requête analysée est partagée entre les appels
+        assertSame(template, SqlTemplate.of(template.getTemplate()));
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("ids", List.of(1, 2, 3));
+        params.put("age", 0);
+        SqlTemplate.Bound bound = template.bind(params);
+
+        // Trois valeurs sont complétées à quatre emplacements
+        assertEquals(5, bound.getParameters().length);
+        assertEquals(3, dbManager.executeQuery(template, params).size());
+    }
+
+    @Test
+    public void testGroupCommit() throws Exception {
+        int initialCount = ((Number) dbManager.executeQuery(
+                dbManager.getSQLDialect().countAll(TEST_TABLE)).get(0).get("count")).intValue();
+
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        try (GroupCommitWriter writer = new GroupCommitWriter(dbManager, 100, 8, 50)) {
+            for (int i = 0; i < 20; i++) {
+                futures.add(writer.submit("INSERT INTO " + TEST_TABLE + " (name, age, email) VALUES (?, ?, ?)",
+                        "Group " + i, 40, "group" + i + "@test.com"));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
+
+            // Les 20 écritures ont été regroupées en plusieurs lots de 8 au plus
+            assertEquals(20, writer.getStats().getWriteCount());
+            assertTrue(writer.getStats().getMaxBatchSize() <= 8);
+        }
+
+        int finalCount = ((Number) dbManager.executeQuery(
+                dbManager.getSQLDialect().countAll(TEST_TABLE)).get(0).get("count")).intValue();
+        assertEquals(initialCount + 20, finalCount);
+    }
+
+    @Test
+    public void testSchemaCache() throws SQLException {
+        SchemaCache cache = dbManager.getSchemaCache();
+        cache.prefetch();
+
+        assertTrue(cache.tableExists(TEST_TABLE));
+        assertFalse(cache.tableExists("table_inexistante"));
+        assertEquals(4, cache.getTable(TEST_TABLE).getColumns().size());
+        assertEquals("id", cache.getPrimaryKey(TEST_TABLE).get(0).toLowerCase());
+
+        // La table est connue : aucun ordre n'est envoyé
+        assertEquals(0, dbManager.createTableIfNotExists(TEST_TABLE, "id INT"));
+    }
+
+    @Test
+    public void testSchemaCacheAfterRollback() throws SQLException {
+        SchemaCache cache = dbManager.getSchemaCache();
+        dbManager.dropTableIfExists(COPY_TABLE);
+        cache.prefetch();
+
+        // Création annulée (PostgreSQL, SQL Server) : le cache ne doit pas croire que la table existe
+        dbManager.beginTransaction();
+        dbManager.createTableIfNotExists(COPY_TABLE, "id INT");
+        dbManager.rollbackTransaction();
+
+        dbManager.createTableIfNotExists(COPY_TABLE, "id INT");
+        assertEquals(1, dbManager.executeUpdate("INSERT INTO " + COPY_TABLE + " (id) VALUES (?)", 1));
+        dbManager.dropTableIfExists(COPY_TABLE);
+    }
+
+    @Test
+    public void testPublishQuery() throws Exception {
+        List<Map<String, Object>> expected = dbManager.executeQuery("SELECT * FROM " + TEST_TABLE);
+        List<Map<String, Object>> received = new ArrayList<>();
+        CountDownLatch completed = new CountDownLatch(1);
+
+        // Abonné qui demande les lignes deux par deux
+        dbManager.publishQuery("SELECT * FROM " + TEST_TABLE).subscribe(new Flow.Subscriber<Map<String, Object>>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(2);
+            }
+
+            @Override
+            public void onNext(Map<String, Object> row) {
+                received.add(row);
+                if (received.size() % 2 == 0) {
+                    subscription.request(2);
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                completed.countDown();
+            }
+
+            @Override
+            public void onComplete() {
+                completed.countDown();
+            }
+        });
+
+        assertTrue(completed.await(10, TimeUnit.SECONDS));
+        assertEquals(expected.size(), received.size());
+    }
+
+    @Test
+    public void testLobStreaming() throws SQLException {
+        dbManager.dropTableIfExists(LOB_TABLE);
+        dbManager.createTableIfNotExists(LOB_TABLE, "id INT PRIMARY KEY, content "
+                + dbManager.getSQLDialect().columnType(Types.BLOB, 0, 0) + ", summary "
+                + dbManager.getSQLDialect().columnType(Types.CLOB, 0, 0));
+
+        // Écrire 1 Mo par flux, avec la longueur connue
+        byte[] content = new byte[1024 * 1024];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        String summary = "Résumé ".repeat(10_000);
+        dbManager.executeUpdate("INSERT INTO " + LOB_TABLE + " (id, content, summary) VALUES (?, ?, ?)", 1,
+                LobParameter.binary(new ByteArrayInputStream(content), content.length),
+                LobParameter.text(new StringReader(summary), summary.length()));
+
+        // Relire par flux, ligne par ligne
+        long rows = dbManager.forEachRow("SELECT id, content, summary FROM " + LOB_TABLE + " WHERE id = ?", row -> {
+            try (InputStream in = row.getBinaryStream("content"); Reader reader = row.getCharacterStream("summary")) {
+                assertArrayEquals(content, in.readAllBytes());
+                StringBuilder text = new StringBuilder();
+                char[] buffer = new char[8192];
+                for (int n; (n = reader.read(buffer)) != -1; ) {
+                    text.append(buffer, 0, n);
+                }
+                assertEquals(summary, text.toString());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, 1);
+        assertEquals(1, rows);
+
+        // executeQuery copie les LOB : les valeurs restent lisibles après fermeture de la connexion
+        Map<String, Object> row = dbManager.executeQuery("SELECT summary FROM " + LOB_TABLE).get(0);
+        assertEquals(summary, row.get("summary"));
+
+        dbManager.dropTableIfExists(LOB_TABLE);
+    }
+
+    @Test
+    public void testTableCopy() throws SQLException {
+        dbManager.dropTableIfExists(COPY_TABLE);
+
+        // Copier la table de test vers une nouvelle table de la même base
+        CopyProgress progress = new TableCopier(dbManager, dbManager).copy(TEST_TABLE, COPY_TABLE, "id");
+
+        int sourceCount = ((Number) dbManager.executeQuery(
+                dbManager.getSQLDialect().countAll(TEST_TABLE)).get(0).get("count")).intValue();
+        int copyCount = ((Number) dbManager.executeQuery(
+                dbManager.getSQLDialect().countAll(COPY_TABLE)).get(0).get("count")).intValue();
+
+        assertEquals(sourceCount, progress.getRowsCopied());
+        assertEquals(sourceCount, copyCount);
+
+        dbManager.dropTableIfExists(COPY_TABLE);
+    }
+
+    @Test
+    public void testTableSync() throws SQLException {
+        dbManager.dropTableIfExists(COPY_TABLE);
+        TableSynchronizer synchronizer = new TableSynchronizer(dbManager, dbManager);
+
+        // Première synchronisation : toutes les lignes ; la suivante : aucune
+        int sourceCount = ((Number) dbManager.executeQuery(
+                dbManager.getSQLDialect().countAll(TEST_TABLE)).get(0).get("count")).intValue();
+        assertEquals(sourceCount, synchronizer.sync(TEST_TABLE, COPY_TABLE, "id", "id"));
+        assertEquals(0, synchronizer.sync(TEST_TABLE, COPY_TABLE, "id", "id"));
+
+        // Seules les nouvelles lignes sont appliquées
+        dbManager.executeUpdate("INSERT INTO " + TEST_TABLE + " (name, age, email) VALUES (?, ?, ?)",
+                "Nouvel Utilisateur", 31, "nouveau@test.com");
+        assertEquals(1, synchronizer.sync(TEST_TABLE, COPY_TABLE, "id", "id"));
+        int copyCount = ((Number) dbManager.executeQuery(
+                dbManager.getSQLDialect().countAll(COPY_TABLE)).get(0).get("count")).intValue();
+        assertEquals(sourceCount + 1, copyCount);
+
+        dbManager.executeUpdate("DELETE FROM " + TableSynchronizer.DEFAULT_STATE_TABLE + " WHERE job_id = ?",
+                TEST_TABLE + "->" + COPY_TABLE);
+        dbManager.dropTableIfExists(COPY_TABLE);
+    }
 }
\ No newline at end of file
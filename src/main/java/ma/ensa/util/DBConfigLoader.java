@@ -22,6 +22,12 @@ public class DBConfigLoader {
         return properties.getProperty("default.database", "mysql");
     }
 
+    /*Option propre à un type de base (ex. oracle.numberOneAsBoolean)*/
+    public boolean getDatabaseOption(String dbType, String option, boolean defaultValue) {
+        String value = properties.getProperty(dbType + "." + option);
+        return value == null ? defaultValue : Boolean.parseBoolean(value.trim());
+    }
+
     public String[] getDatabaseInfo(String dbType){
         String[] info = new String[4];
         info[0] = properties.getProperty(dbType+".driver");